@@ -0,0 +1,154 @@
+package bg.softuni.poosweeper.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A small micro-benchmark harness. Every benchmark is warmed up first and
+ * then measured over several fixed-time iterations, reporting throughput,
+ * average time, allocation per operation and allocation rate, together with
+ * the garbage collections that happened during the measurement.
+ * <p>
+ * The values returned by the benchmarks are accumulated in {@link #sink}, so
+ * that the JIT compiler cannot remove the measured code. The clock is read
+ * after every call, so very cheap operations should be batched by the
+ * benchmark itself.
+ */
+public class BenchmarkRunner {
+
+    private static final String HEADER_FORMAT = "%-44s %14s %14s %12s %12s %6s %8s%n";
+    private static final String ROW_FORMAT = "%-44s %14.1f %14.1f %12.1f %12.1f %6d %8d%n";
+
+    private final long warmupNanos;
+    private final long iterationNanos;
+    private final int iterations;
+    private final String filter;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private long sink;
+
+    /**
+     * Creates a runner with the given timing.
+     *
+     * @param warmupMillis    the warm-up time of every benchmark.
+     * @param iterationMillis the time of a single measurement iteration.
+     * @param iterations      the number of measurement iterations.
+     * @param filter          only benchmarks, whose name contains this text,
+     *                        are run; {@code null} runs all benchmarks.
+     */
+    public BenchmarkRunner(long warmupMillis, long iterationMillis, int iterations, String filter) {
+        this.warmupNanos = TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+        this.iterations = iterations;
+        this.filter = filter;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Prints the header of the results table.
+     */
+    public void printHeader() {
+        System.out.printf(Locale.ROOT, HEADER_FORMAT,
+                "Benchmark", "ops/s", "ns/op", "B/op", "MB/s alloc", "GCs", "GC ms");
+    }
+
+    /**
+     * Runs and reports a single benchmark, unless it is excluded by the filter.
+     *
+     * @param name      the name of the benchmark.
+     * @param operation the measured operation. Its result is consumed so that
+     *                  it cannot be optimized away.
+     */
+    public void run(String name, LongSupplier operation) {
+
+        if (this.filter != null && !name.contains(this.filter)) {
+            return;
+        }
+
+        this.measure(operation, this.warmupNanos);
+
+        long threadId = Thread.currentThread().getId();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocatedBytes = this.threadBean.getThreadAllocatedBytes(threadId);
+        long operations = 0;
+        long nanos = 0;
+
+        for (int i = 0; i < this.iterations; i++) {
+            long start = System.nanoTime();
+            operations += this.measure(operation, this.iterationNanos);
+            nanos += System.nanoTime() - start;
+        }
+
+        allocatedBytes = this.threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+        double seconds = nanos / 1e9;
+
+        System.out.printf(Locale.ROOT, ROW_FORMAT,
+                name,
+                operations / seconds,
+                (double) nanos / operations,
+                (double) allocatedBytes / operations,
+                allocatedBytes / seconds / (1024 * 1024),
+                gcCount() - gcCount,
+                gcMillis() - gcMillis);
+    }
+
+    /**
+     * Returns the accumulated benchmark results. Printing it at the end of a
+     * run keeps the results alive.
+     *
+     * @return the accumulated value.
+     */
+    public long getSink() {
+        return this.sink;
+    }
+
+    /**
+     * Calls the operation repeatedly for at least the given time.
+     *
+     * @param operation the measured operation.
+     * @param duration  the minimal time in nanoseconds.
+     * @return the number of calls.
+     */
+    private long measure(LongSupplier operation, long duration) {
+
+        long operations = 0;
+        long deadline = System.nanoTime() + duration;
+
+        do {
+            this.sink += operation.getAsLong();
+            operations++;
+        } while (System.nanoTime() < deadline);
+
+        return operations;
+    }
+
+    /**
+     * Sums the collection counts of all garbage collectors.
+     *
+     * @return the total number of garbage collections.
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Sums the collection times of all garbage collectors.
+     *
+     * @return the total garbage collection time in milliseconds.
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,114 @@
+package bg.softuni.poosweeper.benchmark;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+
+/**
+ * Benchmarks of the {@link Field} engine for every {@link Difficulty} preset
+ * and for large custom boards with different poo densities.
+ * <p>
+ * Usage: {@code FieldBenchmark [filter]}, where the optional filter selects
+ * the benchmarks whose name contains it, e.g. {@code Hard} or {@code flood}.
+ * The timing can be changed with the {@code benchmark.warmup},
+ * {@code benchmark.iteration} (both in milliseconds) and
+ * {@code benchmark.iterations} system properties.
+ */
+public class FieldBenchmark {
+
+    private static final int[][] CUSTOM_SIZES = {{100, 100}, {1000, 1000}, {4000, 4000}};
+    private static final double[] DENSITIES = {0.01, 0.15, 0.5, 0.9};
+    private static final long SEED = 42L;
+
+    /**
+     * Benchmark entry method.
+     *
+     * @param args the optional benchmark name filter.
+     */
+    public static void main(String[] args) {
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Long.getLong("benchmark.warmup", 1000L),
+                Long.getLong("benchmark.iteration", 1000L),
+                Integer.getInteger("benchmark.iterations", 3),
+                args.length > 0 ? args[0] : null);
+
+        runner.printHeader();
+
+        for (Difficulty difficulty : Difficulty.values()) {
+            benchmarkField(runner, difficulty.name(),
+                    difficulty.getRows(), difficulty.getColumns(), difficulty.getPooCount());
+        }
+
+        for (int[] size : CUSTOM_SIZES) {
+            for (double density : DENSITIES) {
+                int pooCount = (int) (size[0] * (long) size[1] * density);
+                String name = size[0] + "x" + size[1] + "@" + density;
+                benchmarkField(runner, name, size[0], size[1], pooCount);
+            }
+        }
+
+        System.out.println("sink: " + runner.getSink());
+    }
+
+    /**
+     * Runs all benchmarks for a single board configuration.
+     *
+     * @param runner   the benchmark runner.
+     * @param name     the name of the board configuration.
+     * @param rows     the number of rows of the board.
+     * @param columns  the number of columns of the board.
+     * @param pooCount the number of poos on the board.
+     */
+    private static void benchmarkField(BenchmarkRunner runner, String name, int rows, int columns, int pooCount) {
+
+        runner.run(name + " new Field", () -> new Field(rows, columns, pooCount).getPooCount());
+
+        Field field = new Field(rows, columns, pooCount, SEED);
+        int[] largestRegion = findLargestRegion(field);
+
+        runner.run(name + " flood fill (" + largestRegion.length + " cells)",
+                () -> field.getAdjacentIndices(largestRegion[0] / columns, largestRegion[0] % columns).length);
+
+        runner.run(name + " toggleFlag x2", () -> {
+            field.toggleFlag(0, 0);
+            return field.toggleFlag(0, 0) ? 1 : 0;
+        });
+
+        runner.run(name + " isOpen all cells", () -> {
+            long open = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    if (field.isOpen(row, column)) {
+                        open++;
+                    }
+                }
+            }
+            return open;
+        });
+    }
+
+    /**
+     * Finds the largest region, which opens with a single click.
+     *
+     * @param field the field to search.
+     * @return the indices of the cells in the region.
+     */
+    private static int[] findLargestRegion(Field field) {
+
+        int[] largest = new int[0];
+        int step = Math.max(1, field.getRows() * field.getColumns() / 1000);
+
+        for (int index = 0; index < field.getRows() * field.getColumns(); index += step) {
+            int row = index / field.getColumns();
+            int column = index % field.getColumns();
+            if (!field.isPoo(row, column)) {
+                int[] region = field.getAdjacentIndices(row, column);
+                if (region.length > largest.length) {
+                    largest = region;
+                }
+            }
+        }
+
+        return largest.length > 0 ? largest : new int[]{0};
+    }
+}
@@ -0,0 +1,58 @@
+package bg.softuni.poosweeper.benchmark;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+import bg.softuni.poosweeper.solver.Solver;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Throughput benchmarks of the {@link Solver} for every {@link Difficulty}
+ * preset. Every operation generates a new field and plays it to the end, so
+ * the field construction measured by {@link FieldBenchmark} is included.
+ * <p>
+ * Usage: {@code SolverBenchmark [filter]}, with the same options as
+ * {@link FieldBenchmark}. The win rate of the measured games is printed
+ * after each preset.
+ */
+public class SolverBenchmark {
+
+    /**
+     * Benchmark entry method.
+     *
+     * @param args the optional benchmark name filter.
+     */
+    public static void main(String[] args) {
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Long.getLong("benchmark.warmup", 1000L),
+                Long.getLong("benchmark.iteration", 1000L),
+                Integer.getInteger("benchmark.iterations", 3),
+                args.length > 0 ? args[0] : null);
+
+        runner.printHeader();
+
+        for (Difficulty difficulty : Difficulty.values()) {
+
+            SplittableRandom random = new SplittableRandom(difficulty.ordinal());
+            long[] games = new long[2];
+
+            runner.run(difficulty.name() + " solve", () -> {
+                Field field = new Field(difficulty.getRows(), difficulty.getColumns(),
+                        difficulty.getPooCount(), random.nextLong());
+                boolean won = new Solver(field, random.split()).solve();
+                games[0]++;
+                games[1] += won ? 1 : 0;
+                return won ? 1 : 0;
+            });
+
+            if (games[0] > 0) {
+                System.out.printf(Locale.ROOT, "%-44s %13.1f%%%n",
+                        difficulty.name() + " win rate", 100.0 * games[1] / games[0]);
+            }
+        }
+
+        System.out.println("sink: " + runner.getSink());
+    }
+}
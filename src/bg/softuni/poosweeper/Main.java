@@ -1,10 +1,12 @@
 package bg.softuni.poosweeper;
 
 import bg.softuni.poosweeper.controller.MainController;
+import bg.softuni.poosweeper.metrics.GameMetrics;
+import bg.softuni.poosweeper.utils.ImageAsset;
+import bg.softuni.poosweeper.utils.SoundHandler;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
-import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 /**
@@ -30,13 +32,16 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
 
+        SoundHandler.preload();
+        ImageAsset.preload();
+        GameMetrics.register();
+
         FXMLLoader fxmlLoader = new FXMLLoader();
         fxmlLoader.setLocation(getClass().getResource("view/main.fxml"));
 
-        primaryStage.getIcons().add(new Image("file:resources/images/icon.png"));
+        primaryStage.getIcons().add(ImageAsset.Icon.getImage());
         primaryStage.setTitle(TITLE);
         primaryStage.setScene(new Scene(fxmlLoader.load()));
-        primaryStage.setResizable(false);
         primaryStage.sizeToScene();
         primaryStage.show();
 
@@ -50,7 +55,11 @@ public class Main extends Application {
      */
     @Override
     public void stop() throws Exception {
-        this.controller.stop();
+        try {
+            this.controller.stop();
+        } finally {
+            GameMetrics.shutdown();
+        }
     }
 
     /**
@@ -0,0 +1,244 @@
+package bg.softuni.poosweeper.controller;
+
+import bg.softuni.poosweeper.model.CellValue;
+import bg.softuni.poosweeper.model.InfiniteField;
+import bg.softuni.poosweeper.utils.ImageAsset;
+import bg.softuni.poosweeper.utils.SoundHandler;
+import bg.softuni.poosweeper.view.CanvasBoardView;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Plays the endless mode on an {@link InfiniteField} in its own window. The
+ * window shows a {@link #VIEW_ROWS} x {@link #VIEW_COLUMNS} part of the
+ * board on a {@link CanvasBoardView}, and the arrow keys move that part by
+ * {@link #SCROLL_STEP} cells. The game starts with an empty cell near the
+ * middle opened and ends with the first opened poo, so the score is the
+ * number of opened cells.
+ */
+public class EndlessController {
+
+    private static final String TITLE = "Poosweeper - Endless";
+    private static final String STYLESHEET = "/bg/softuni/poosweeper/view/main.css";
+    private static final int VIEW_ROWS = 20;
+    private static final int VIEW_COLUMNS = 30;
+    private static final int SCROLL_STEP = 8;
+    private static final double POO_DENSITY = 0.16;
+    private static final int MAX_LOADED_CHUNKS = Integer.getInteger("poosweeper.endless.loadedChunks", 64);
+    private static final int MAX_PACKED_CHUNKS = Integer.getInteger("poosweeper.endless.packedChunks", 4096);
+
+    private final InfiniteField field;
+    private final CanvasBoardView boardView = new CanvasBoardView();
+    private final Label scoreLabel = new Label();
+    private int firstRow = -VIEW_ROWS / 2;
+    private int firstColumn = -VIEW_COLUMNS / 2;
+    private long openedCount;
+    private boolean gameOver;
+    private long boomCell;
+
+    /**
+     * Creates an endless game.
+     *
+     * @param seed the seed from which the whole board is generated.
+     */
+    public EndlessController(long seed) {
+        this.field = new InfiniteField(POO_DENSITY, seed, MAX_LOADED_CHUNKS, MAX_PACKED_CHUNKS);
+    }
+
+    /**
+     * Opens the start cell and shows the game in a new window.
+     *
+     * @param owner the window of the main game.
+     */
+    public void show(Window owner) {
+
+        this.scoreLabel.getStyleClass().add("timeLabel");
+        this.boardView.getNode().addEventFilter(MouseEvent.MOUSE_CLICKED, this::onBoardClicked);
+        this.boardView.reset(VIEW_ROWS, VIEW_COLUMNS);
+
+        this.openStart();
+        this.showView();
+        this.updateScoreText();
+
+        Scene scene = new Scene(new BorderPane(this.boardView.getNode(), this.scoreLabel, null, null, null));
+        scene.getStylesheets().add(EndlessController.class.getResource(STYLESHEET).toExternalForm());
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, this::onKeyPressed);
+
+        Stage stage = new Stage();
+        stage.initOwner(owner);
+        stage.getIcons().add(ImageAsset.Icon.getImage());
+        stage.setTitle(TITLE);
+        stage.setScene(scene);
+        stage.sizeToScene();
+        stage.show();
+    }
+
+    /**
+     * Opens or flags the clicked cell, unless the game is over.
+     *
+     * @param event the mouse event on the board.
+     */
+    private void onBoardClicked(MouseEvent event) {
+
+        int index = this.boardView.getCellAt(event.getX(), event.getY());
+        if (index < 0 || this.gameOver) {
+            return;
+        }
+
+        int row = this.firstRow + index / VIEW_COLUMNS;
+        int column = this.firstColumn + index % VIEW_COLUMNS;
+
+        if (this.field.isOpen(row, column)) {
+            return;
+        }
+
+        if (event.getButton() == MouseButton.SECONDARY) {
+            this.field.toggleFlag(row, column);
+            this.showCell(row, column);
+        } else if (event.getButton() == MouseButton.PRIMARY && !this.field.isFlagged(row, column)) {
+            if (this.field.isPoo(row, column)) {
+                this.loseGame(row, column);
+            } else {
+                this.open(row, column);
+            }
+        }
+    }
+
+    /**
+     * Moves the visible part of the board with the arrow keys.
+     *
+     * @param event the key event.
+     */
+    private void onKeyPressed(KeyEvent event) {
+
+        switch (event.getCode()) {
+            case UP:
+                this.firstRow -= SCROLL_STEP;
+                break;
+            case DOWN:
+                this.firstRow += SCROLL_STEP;
+                break;
+            case LEFT:
+                this.firstColumn -= SCROLL_STEP;
+                break;
+            case RIGHT:
+                this.firstColumn += SCROLL_STEP;
+                break;
+            default:
+                return;
+        }
+
+        this.showView();
+        event.consume();
+    }
+
+    /**
+     * Opens the empty cell closest to the middle of the view, if there is
+     * one, so the game does not start with a guess.
+     */
+    private void openStart() {
+
+        int middleRow = this.firstRow + VIEW_ROWS / 2;
+        int middleColumn = this.firstColumn + VIEW_COLUMNS / 2;
+
+        for (int distance = 0; distance < VIEW_ROWS / 2; distance++) {
+            for (int row = middleRow - distance; row <= middleRow + distance; row++) {
+                for (int column = middleColumn - distance; column <= middleColumn + distance; column++) {
+                    if (!this.field.isPoo(row, column) && this.field.getCellValue(row, column) == CellValue.Empty) {
+                        this.open(row, column);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the region of a cell and shows its visible cells.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    private void open(int row, int column) {
+
+        long[] region = this.field.open(row, column);
+        this.openedCount += region.length;
+
+        for (long cell : region) {
+            this.showCell(InfiniteField.rowOf(cell), InfiniteField.columnOf(cell));
+        }
+
+        this.updateScoreText();
+    }
+
+    /**
+     * Ends the game and shows the poos of the view.
+     *
+     * @param row    the row of the opened poo.
+     * @param column the column of the opened poo.
+     */
+    private void loseGame(int row, int column) {
+        SoundHandler.playRandomFartClip();
+        this.gameOver = true;
+        this.boomCell = InfiniteField.pack(row, column);
+        this.showView();
+        this.updateScoreText();
+    }
+
+    /**
+     * Shows all cells of the view from the current state of the board.
+     */
+    private void showView() {
+        for (int row = this.firstRow; row < this.firstRow + VIEW_ROWS; row++) {
+            for (int column = this.firstColumn; column < this.firstColumn + VIEW_COLUMNS; column++) {
+                this.showCell(row, column);
+            }
+        }
+    }
+
+    /**
+     * Shows a cell, if it is in the view. After the game is over, the poos
+     * and the wrong flags are shown as well.
+     *
+     * @param row    the row of the cell on the board.
+     * @param column the column of the cell on the board.
+     */
+    private void showCell(int row, int column) {
+
+        int viewRow = row - this.firstRow;
+        int viewColumn = column - this.firstColumn;
+
+        if (viewRow < 0 || viewRow >= VIEW_ROWS || viewColumn < 0 || viewColumn >= VIEW_COLUMNS) {
+            return;
+        }
+
+        boolean flagged = this.field.isFlagged(row, column);
+
+        if (this.field.isOpen(row, column)) {
+            this.boardView.showOpened(viewRow, viewColumn, this.field.getCellValue(row, column));
+        } else if (!this.gameOver || flagged == this.field.isPoo(row, column)) {
+            this.boardView.showFlagged(viewRow, viewColumn, flagged);
+        } else if (flagged) {
+            this.boardView.showMistake(viewRow, viewColumn);
+        } else if (InfiniteField.pack(row, column) == this.boomCell) {
+            this.boardView.showBoom(viewRow, viewColumn);
+        } else {
+            this.boardView.showPoo(viewRow, viewColumn);
+        }
+    }
+
+    /**
+     * Shows the number of opened cells.
+     */
+    private void updateScoreText() {
+        this.scoreLabel.setText(this.gameOver
+                ? "Opened " + this.openedCount + " cells - game over"
+                : "Opened " + this.openedCount + " cells");
+    }
+}
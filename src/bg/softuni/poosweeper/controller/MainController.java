@@ -1,37 +1,89 @@
 package bg.softuni.poosweeper.controller;
 
+import bg.softuni.poosweeper.metrics.GameMetrics;
 import bg.softuni.poosweeper.model.Difficulty;
 import bg.softuni.poosweeper.model.ElapsedTime;
 import bg.softuni.poosweeper.model.Field;
+import bg.softuni.poosweeper.model.FieldPool;
+import bg.softuni.poosweeper.model.ReplayAction;
+import bg.softuni.poosweeper.model.ReplayReader;
+import bg.softuni.poosweeper.model.ReplayRecorder;
+import bg.softuni.poosweeper.model.SavedGame;
+import bg.softuni.poosweeper.solver.NoGuessGenerator;
 import bg.softuni.poosweeper.utils.MouseClickHandler;
+import bg.softuni.poosweeper.utils.ReplayPlayer;
+import bg.softuni.poosweeper.view.BoardRenderer;
+import bg.softuni.poosweeper.view.BoardView;
+import bg.softuni.poosweeper.view.ButtonBoardView;
+import bg.softuni.poosweeper.view.CanvasBoardView;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
-import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.Label;
-import javafx.scene.control.Labeled;
-import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.RowConstraints;
+import javafx.scene.layout.StackPane;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 /**
  * Main controller class, which is responsible for UI and game logic binding.
  */
 public class MainController {
 
+    private static final int FIELD_POOL_DEPTH = Integer.getInteger("poosweeper.pool.depth", 2);
+    private static final long FIELD_POOL_REFILL_DELAY = Long.getLong("poosweeper.pool.refillDelay", 50L);
+    private static final long NO_GUESS_TIMEOUT = Long.getLong("poosweeper.noGuess.timeout", 250L);
+    private static final Path AUTOSAVE_PATH = Paths.get(System.getProperty("poosweeper.autosave",
+            Paths.get(System.getProperty("user.home"), ".poosweeper", "autosave.poo").toString()));
+    private static final String SAVE_EXTENSION = "*.poo";
+    private static final Path REPLAY_PATH = Paths.get(System.getProperty("poosweeper.replay",
+            Paths.get(System.getProperty("user.home"), ".poosweeper", "last.replay").toString()));
+    private static final String REPLAY_EXTENSION = "*.replay";
+
     @FXML
     private Label timeLabel;
     @FXML
     private Label pooCountLabel;
     @FXML
+    private Label guessWarningLabel;
+    @FXML
+    private StackPane boardPane;
+    @FXML
     private GridPane visualGrid;
+    @FXML
+    private MenuItem saveMenuItem;
 
     private Field field;
+    private FieldPool fieldPool;
+    private FieldPool noGuessFieldPool;
+    private NoGuessGenerator noGuessGenerator;
+    private boolean noGuess;
+    private MouseClickHandler clickHandler;
+    private ReplayRecorder recorder;
+    private ReplayPlayer replayPlayer;
+    private double replaySpeed = 1;
+    private Difficulty difficulty;
     private ElapsedTime timer;
     private boolean gameOver;
-    private Button[][] visualButtons;
+    private BoardView boardView;
+    private BoardRenderer boardRenderer;
+    private ButtonBoardView buttonBoardView;
+    private CanvasBoardView canvasBoardView;
     private Stage stage;
 
     /**
@@ -52,41 +104,237 @@ public class MainController {
         return this.field;
     }
 
+    /**
+     * Checks if a replay is being played, so the clicks of the player are
+     * ignored.
+     *
+     * @return {@code true} while a replay is played; otherwise, {@code false}.
+     */
+    public boolean isReplaying() {
+        return this.replayPlayer != null;
+    }
+
+    /**
+     * Records an action of the current game, unless it is a replayed or a
+     * restored game.
+     *
+     * @param action the action.
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    public void record(ReplayAction action, int row, int column) {
+        if (this.recorder != null) {
+            this.recorder.record(action, row, column);
+        }
+    }
+
+    /**
+     * Returns the time spent on the current game.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.timer.getElapsedNanos();
+    }
+
+    /**
+     * Getter for {@link #boardView} field.
+     *
+     * @return the field value.
+     */
+    public BoardView getBoardView() {
+        return this.boardView;
+    }
+
+    /**
+     * Draws the cells changed in the {@link #field} on the next pulse.
+     */
+    public void requestRender() {
+        this.boardRenderer.start();
+    }
+
+    /**
+     * Starts a new game with the given difficulty, using a field which was
+     * generated in advance by the {@link #fieldPool} when one is ready. In
+     * the no-guessing mode the field comes from the {@link #noGuessFieldPool},
+     * which searches for one right away when none is ready, and its start
+     * cell is opened. When the search fails, or the difficulty is not
+     * supported by the {@link #noGuessGenerator}, the field only has a safe
+     * start and a warning tells the player that it may need a guess.
+     *
+     * @param difficulty the difficulty of the new game.
+     */
+    private void newGame(Difficulty difficulty) {
+
+        this.difficulty = difficulty;
+        long startNanos = System.nanoTime();
+
+        if (!this.noGuess) {
+            Field field = this.fieldPool.take(difficulty);
+            GameMetrics.fieldCreated(startNanos);
+            this.setField(field, 0);
+            this.recorder = new ReplayRecorder(REPLAY_PATH, this.field);
+            return;
+        }
+
+        Field field = null;
+        if (NoGuessGenerator.getSupportedDifficulties().contains(difficulty)) {
+            field = this.noGuessFieldPool.take(difficulty);
+        }
+
+        boolean guaranteed = field != null;
+        if (!guaranteed) {
+            field = this.noGuessGenerator.generateSafeStart(difficulty);
+        }
+
+        GameMetrics.fieldCreated(startNanos);
+        this.setField(field, 0);
+        this.guessWarningLabel.setVisible(!guaranteed);
+        this.recorder = new ReplayRecorder(REPLAY_PATH, this.field);
+        this.clickHandler.click(NoGuessGenerator.getStartRow(this.field),
+                NoGuessGenerator.getStartColumn(this.field), MouseButton.PRIMARY);
+    }
+
     /**
      * Sets a new game field and resets the UI state.
      *
-     * @param field the game field instance of various difficulty and size.
+     * @param field        the game field instance of various difficulty and size.
+     * @param elapsedNanos the time already spent on the field.
      */
-    private void setField(Field field) {
+    private void setField(Field field, long elapsedNanos) {
+
+        this.stopRecording();
+        this.stopReplay();
 
         this.gameOver = false;
+        this.saveMenuItem.setDisable(false);
+        this.guessWarningLabel.setVisible(false);
         if (this.timer != null) {
             this.timer.stop();
         }
 
         this.field = field;
-        this.visualButtons = new Button[field.getRows()][field.getColumns()];
+        this.field.enableDirtyTracking();
         this.pooCountLabel.setText(Integer.toString(field.getPooCount()));
         this.timer = new ElapsedTime(this::updateTimeLabel);
 
-        this.clearVisualGrid();
-        this.addVisualColumns();
-        this.addVisualRows();
-        this.addVisualButtons();
+        this.boardView.reset(field.getRows(), field.getColumns());
 
-        this.timer.start();
-        this.sizeToScene();
+        this.timer.start(elapsedNanos);
     }
 
     /**
-     * Returns the button instance corresponding to the row and column coordinates.
+     * Continues a saved game: shows its opened and flagged cells and
+     * continues its clock. The difficulty of the following games is the
+     * preset matching the saved field, if any.
      *
-     * @param row    the row of the button.
-     * @param column the column of the button.
-     * @return the button instance.
+     * @param savedGame the saved game.
      */
-    public Labeled getButton(int row, int column) {
-        return this.visualButtons[row][column];
+    private void restoreGame(SavedGame savedGame) {
+
+        Field savedField = savedGame.getField();
+
+        for (Difficulty preset : Difficulty.values()) {
+            if (preset.getRows() == savedField.getRows() && preset.getColumns() == savedField.getColumns()) {
+                this.difficulty = preset;
+            }
+        }
+
+        this.setField(savedField, savedGame.getElapsedNanos());
+
+        for (int row = 0; row < savedField.getRows(); row++) {
+            for (int column = 0; column < savedField.getColumns(); column++) {
+                if (savedField.isOpen(row, column)) {
+                    this.boardView.showOpened(row, column, savedField.getCellValue(row, column));
+                } else if (savedField.isFlagged(row, column)) {
+                    this.boardView.showFlagged(row, column, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finishes the recording of the current game, if any.
+     *
+     * @return a future, which completes when the replay file is closed.
+     */
+    private Future<?> stopRecording() {
+
+        if (this.recorder == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Future<?> closed = this.recorder.close();
+        this.recorder = null;
+        return closed;
+    }
+
+    /**
+     * Waits until the replay file is closed. A failed recording is
+     * abandoned, so there is nothing else to do.
+     *
+     * @param closed the future returned by {@link #stopRecording()}.
+     */
+    private static void awaitQuietly(Future<?> closed) {
+        try {
+            closed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The replay file stays as far as it was written.
+        }
+    }
+
+    /**
+     * Stops the replay being played, if any.
+     */
+    private void stopReplay() {
+        if (this.replayPlayer != null) {
+            this.replayPlayer.stop();
+        }
+    }
+
+    /**
+     * Plays a replay file on a new board.
+     *
+     * @param path the path of the replay file.
+     */
+    private void playReplay(Path path) {
+
+        awaitQuietly(this.stopRecording());
+
+        ReplayReader reader;
+        try {
+            reader = new ReplayReader(path);
+        } catch (IOException e) {
+            this.showError("The replay could not be loaded.", e);
+            return;
+        }
+
+        this.setField(reader.getField(), 0);
+
+        ReplayPlayer player = new ReplayPlayer(reader, this.clickHandler, this.replaySpeed, () -> {
+            if (this.replayPlayer != null) {
+                this.replayPlayer = null;
+                this.setGameOver();
+            }
+        });
+        this.replayPlayer = player;
+        player.start();
+    }
+
+    /**
+     * Replaces the current board view and starts a new game with the current
+     * difficulty, so that the new view is drawn from scratch. The window is
+     * resized to the preferred size of the new view.
+     *
+     * @param boardView the new board view.
+     */
+    private void setBoardView(BoardView boardView) {
+        this.boardView = boardView;
+        this.boardPane.getChildren().setAll(boardView.getNode());
+        this.newGame(this.difficulty);
+        this.sizeToScene();
     }
 
     /**
@@ -94,53 +342,118 @@ public class MainController {
      * bg.softuni.poosweeper.Main#start(javafx.stage.Stage)}. This allows the
      * controller to manipulate the stage object in order to resize it appropriately.
      *
+     * The game clock is paused while the stage is minimized.
+     *
      * @param stage the primary stage for this application.
      */
     public void setStage(Stage stage) {
         this.stage = stage;
+        this.stage.iconifiedProperty().addListener((observable, wasIconified, iconified) -> {
+            if (iconified) {
+                this.timer.pause();
+            } else {
+                this.timer.resume();
+            }
+        });
     }
 
     /**
      * JavaFX specific method, which is called after {@link
      * bg.softuni.poosweeper.Main#start(javafx.stage.Stage)}. Its main purpose is
-     * to set the initial game field.
+     * to set the initial game field, which is the autosaved game if there is
+     * one. A single {@link MouseClickHandler} is
+     * installed as an event filter on every board view, so that it receives
+     * the clicks before any control inside the board.
      */
     @FXML
     public void initialize() {
-        this.setField(Difficulty.Medium.createField());
+
+        this.clickHandler = new MouseClickHandler(this);
+        this.boardRenderer = new BoardRenderer(this);
+
+        this.fieldPool = new FieldPool(FIELD_POOL_DEPTH, FIELD_POOL_REFILL_DELAY);
+
+        this.buttonBoardView = new ButtonBoardView(this.visualGrid);
+        this.canvasBoardView = new CanvasBoardView();
+        this.buttonBoardView.getNode().addEventFilter(MouseEvent.MOUSE_CLICKED, this.clickHandler);
+        this.canvasBoardView.getNode().addEventFilter(MouseEvent.MOUSE_CLICKED, this.clickHandler);
+
+        this.boardView = this.buttonBoardView;
+        this.difficulty = Difficulty.Medium;
+
+        if (Files.exists(AUTOSAVE_PATH)) {
+            try {
+                this.restoreGame(SavedGame.load(AUTOSAVE_PATH));
+                return;
+            } catch (IOException e) {
+                // An unreadable autosave is replaced by a new game.
+            }
+        }
+
+        this.newGame(this.difficulty);
     }
 
     /**
      * This method is called when the application should stop, and provides a
      * convenient place to prepare for disposing controller resources (like
-     * background timers).
+     * background timers and the field generation). A game in progress is
+     * autosaved, so that it continues when the application starts again.
+     * The resources are disposed even if the autosave fails.
+     *
+     * @throws IOException if the autosave cannot be written or deleted.
      */
-    public void stop() {
-        this.setGameOver();
+    public void stop() throws IOException {
+
+        awaitQuietly(this.stopRecording());
+        this.stopReplay();
+
+        try {
+            if (this.gameOver) {
+                Files.deleteIfExists(AUTOSAVE_PATH);
+            } else {
+                this.timer.stop();
+                Files.createDirectories(AUTOSAVE_PATH.toAbsolutePath().getParent());
+                new SavedGame(this.field, this.timer.getElapsedNanos()).save(AUTOSAVE_PATH);
+            }
+        } finally {
+            this.setGameOver();
+            this.fieldPool.shutdown();
+            if (this.noGuessFieldPool != null) {
+                this.noGuessFieldPool.shutdown();
+                this.noGuessGenerator.shutdown();
+            }
+        }
     }
 
     /**
-     * Updates controller state for ended game.
+     * Updates controller state for ended game. An ended game cannot be
+     * saved, because the format does not keep the lost or won state.
      */
     public void setGameOver() {
         this.timer.stop();
         this.gameOver = true;
+        this.saveMenuItem.setDisable(true);
     }
 
     /**
-     * Displays all poos on the visual grid.
+     * Displays all poos and wrong flags on the visual grid. Only the cells
+     * with a poo or a flag are visited.
      */
     public void showAllPoos() {
-        for (int row = 0; row < this.field.getRows(); row++) {
-            for (int column = 0; column < this.field.getColumns(); column++) {
-                if (this.field.isPoo(row, column) && !this.field.isFlagged(row, column)) {
-                    this.visualButtons[row][column].getStyleClass().add(
-                            this.field.getCellValue(row, column).getStyleClass());
-                }
 
-                if (!this.field.isPoo(row, column) && this.field.isFlagged(row, column)) {
-                    this.visualButtons[row][column].getStyleClass().add("mistake");
-                }
+        this.boardRenderer.flush();
+
+        int columns = this.field.getColumns();
+
+        for (int index : this.field.getPooIndices()) {
+            if (!this.field.isFlagged(index / columns, index % columns)) {
+                this.boardView.showPoo(index / columns, index % columns);
+            }
+        }
+
+        for (int index : this.field.getFlagIndices()) {
+            if (!this.field.isPoo(index / columns, index % columns)) {
+                this.boardView.showMistake(index / columns, index % columns);
             }
         }
     }
@@ -164,98 +477,149 @@ public class MainController {
     }
 
     /**
-     * Removes all UI components from the {@link #visualGrid} field. This is
-     * a required step for creating a new interactable game UI.
-     *
-     * @see GridPane
+     * Resize the stage (window) to the current scene size. Used when
+     * the board view is switched, so that new games and restored games
+     * keep the size chosen by the user.
      */
-    private void clearVisualGrid() {
-        this.visualGrid.getChildren().clear();
+    private void sizeToScene() {
+        if (this.stage != null) {
+            this.stage.sizeToScene();
+        }
     }
 
-    /**
-     * Creates and adds {@link ColumnConstraints} to the {@link #visualGrid}. Their
-     * count equals the number of columns returned by {@link Field#getColumns()}.
-     *
-     * @see GridPane
-     */
-    private void addVisualColumns() {
-        for (int i = 0; i < this.field.getColumns(); i++) {
-            this.visualGrid.getColumnConstraints().add(new ColumnConstraints());
+    @FXML
+    private void onNewGameEasyClicked(ActionEvent actionEvent) {
+        this.newGame(Difficulty.Easy);
+    }
+
+    @FXML
+    private void onNewGameMediumClicked(ActionEvent actionEvent) {
+        this.newGame(Difficulty.Medium);
+    }
+
+    @FXML
+    private void onNewGameHardClicked(ActionEvent actionEvent) {
+        this.newGame(Difficulty.Hard);
+    }
+
+    @FXML
+    private void onNewGameInsaneClicked(ActionEvent actionEvent) {
+        this.newGame(Difficulty.Insane);
+    }
+
+    @FXML
+    private void onNewGameEndlessClicked(ActionEvent actionEvent) {
+        new EndlessController(new SplittableRandom().nextLong()).show(this.stage);
+    }
+
+    @FXML
+    private void onNoGuessToggled(ActionEvent actionEvent) {
+
+        this.noGuess = ((CheckMenuItem) actionEvent.getSource()).isSelected();
+
+        if (this.noGuess && this.noGuessFieldPool == null) {
+            this.noGuessGenerator = new NoGuessGenerator(Runtime.getRuntime().availableProcessors(), NO_GUESS_TIMEOUT);
+            this.noGuessFieldPool = new FieldPool(FIELD_POOL_DEPTH, FIELD_POOL_REFILL_DELAY,
+                    NoGuessGenerator.getSupportedDifficulties(),
+                    this.noGuessGenerator::generate, this.noGuessGenerator::generate);
         }
+
+        this.newGame(this.difficulty);
     }
 
-    /**
-     * Creates and adds {@link RowConstraints} to the {@link #visualGrid}. Their
-     * count equals the number of rows returned by {@link Field#getColumns()}.
-     *
-     * @see GridPane
-     */
-    private void addVisualRows() {
-        for (int i = 0; i < this.field.getRows(); i++) {
-            this.visualGrid.getRowConstraints().add(new RowConstraints());
+    @FXML
+    private void onButtonBoardSelected(ActionEvent actionEvent) {
+        this.setBoardView(this.buttonBoardView);
+    }
+
+    @FXML
+    private void onCanvasBoardSelected(ActionEvent actionEvent) {
+        this.setBoardView(this.canvasBoardView);
+    }
+
+    @FXML
+    private void onProgressiveRevealToggled(ActionEvent actionEvent) {
+        this.boardRenderer.setProgressive(((CheckMenuItem) actionEvent.getSource()).isSelected());
+    }
+
+    @FXML
+    private void onSaveClicked(ActionEvent actionEvent) {
+
+        File file = this.createSaveFileChooser().showSaveDialog(this.stage);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            new SavedGame(this.field, this.timer.getElapsedNanos()).save(file.toPath());
+        } catch (IOException e) {
+            this.showError("The game could not be saved.", e);
         }
     }
 
-    /**
-     * Create and add {@link Button} objects to the {@link #visualGrid}. Their
-     * instances are also saved for convenience in the {@link #visualButtons} matrix.
-     */
-    private void addVisualButtons() {
-        for (int row = 0; row < this.field.getRows(); row++) {
-            for (int column = 0; column < this.field.getColumns(); column++) {
-                this.visualButtons[row][column] = createVisualButton(row, column);
-                this.visualGrid.add(this.visualButtons[row][column], column, row);
-            }
+    @FXML
+    private void onLoadClicked(ActionEvent actionEvent) {
+
+        File file = this.createSaveFileChooser().showOpenDialog(this.stage);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            this.restoreGame(SavedGame.load(file.toPath()));
+        } catch (IOException e) {
+            this.showError("The game could not be loaded.", e);
         }
     }
 
     /**
-     * Creates a single {@link Button} instance with a click handler for its
-     * respective place in the game {@link #field}.
+     * Creates a file chooser for saved games.
      *
-     * @param row    the zero-based index of the row the button represents.
-     * @param column the zero-based index of the column the button represents.
-     * @return the button instance.
+     * @return the file chooser.
      */
-    private Button createVisualButton(int row, int column) {
-
-        Button cellButton = new Button();
-        cellButton.setOnMouseClicked(new MouseClickHandler(row, column, this));
-        cellButton.setPrefWidth(30.0);
-        cellButton.setPrefHeight(30.0);
-
-        return cellButton;
+    private FileChooser createSaveFileChooser() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Saved games", SAVE_EXTENSION));
+        return fileChooser;
     }
 
     /**
-     * Resize the stage (window) to the current scene size. Used when
-     * a new game is created.
+     * Displays an alert box with an error message.
+     *
+     * @param message   the message.
+     * @param exception the cause of the error.
      */
-    private void sizeToScene() {
-        if (this.stage != null) {
-            this.stage.sizeToScene();
-        }
+    private void showError(String message, Exception exception) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(message);
+        alert.setContentText(exception.getMessage());
+        alert.show();
     }
 
     @FXML
-    private void onNewGameEasyClicked(ActionEvent actionEvent) {
-        this.setField(Difficulty.Easy.createField());
+    private void onReplayLastClicked(ActionEvent actionEvent) {
+        this.playReplay(REPLAY_PATH);
     }
 
     @FXML
-    private void onNewGameMediumClicked(ActionEvent actionEvent) {
-        this.setField(Difficulty.Medium.createField());
-    }
+    private void onOpenReplayClicked(ActionEvent actionEvent) {
 
-    @FXML
-    private void onNewGameHardClicked(ActionEvent actionEvent) {
-        this.setField(Difficulty.Hard.createField());
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Replays", REPLAY_EXTENSION));
+
+        File file = fileChooser.showOpenDialog(this.stage);
+        if (file != null) {
+            this.playReplay(file.toPath());
+        }
     }
 
     @FXML
-    private void onNewGameInsaneClicked(ActionEvent actionEvent) {
-        this.setField(Difficulty.Insane.createField());
+    private void onReplaySpeedSelected(ActionEvent actionEvent) {
+        this.replaySpeed = Double.parseDouble((String) ((MenuItem) actionEvent.getSource()).getUserData());
+        if (this.replayPlayer != null) {
+            this.replayPlayer.setSpeed(this.replaySpeed);
+        }
     }
 
     @FXML
@@ -0,0 +1,36 @@
+package bg.softuni.poosweeper.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event emitted when a new field is generated, on the thread which
+ * generated it. The duration covers placing the poos and the hints.
+ */
+@Name("bg.softuni.poosweeper.BoardGenerated")
+@Label("Board Generated")
+@Category("Poosweeper")
+@StackTrace(false)
+public class BoardGeneratedEvent extends Event {
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Poos")
+    public int pooCount;
+
+    @Label("Placement Time")
+    @Timespan
+    public long placementTime;
+
+    @Label("Hint Time")
+    @Timespan
+    public long hintTime;
+}
@@ -0,0 +1,27 @@
+package bg.softuni.poosweeper.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event emitted when a click opens a region. The duration covers the
+ * flood fill and opening the cells in the field, but not drawing them.
+ */
+@Name("bg.softuni.poosweeper.CellsRevealed")
+@Label("Cells Revealed")
+@Category("Poosweeper")
+@StackTrace(false)
+public class CellsRevealedEvent extends Event {
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+
+    @Label("Cells")
+    public int count;
+}
@@ -0,0 +1,26 @@
+package bg.softuni.poosweeper.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event emitted when a flag is placed or removed.
+ */
+@Name("bg.softuni.poosweeper.FlagToggled")
+@Label("Flag Toggled")
+@Category("Poosweeper")
+@StackTrace(false)
+public class FlagToggledEvent extends Event {
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+
+    @Label("Flagged")
+    public boolean flagged;
+}
@@ -0,0 +1,34 @@
+package bg.softuni.poosweeper.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event emitted when a game is won or lost.
+ */
+@Name("bg.softuni.poosweeper.GameEnded")
+@Label("Game Ended")
+@Category("Poosweeper")
+@StackTrace(false)
+public class GameEndedEvent extends Event {
+
+    @Label("Won")
+    public boolean won;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Poos")
+    public int pooCount;
+
+    @Label("Elapsed Time")
+    @Timespan
+    public long elapsedTime;
+}
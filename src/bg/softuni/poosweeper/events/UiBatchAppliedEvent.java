@@ -0,0 +1,28 @@
+package bg.softuni.poosweeper.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event emitted when the changed cells are drawn in a JavaFX pulse.
+ * The duration covers drawing the cells, not the layout and rendering of
+ * the scene, which follow in the same pulse.
+ */
+@Name("bg.softuni.poosweeper.UiBatchApplied")
+@Label("UI Batch Applied")
+@Category("Poosweeper")
+@StackTrace(false)
+public class UiBatchAppliedEvent extends Event {
+
+    @Label("Cells")
+    public int count;
+
+    @Label("Remaining Cells")
+    public int remaining;
+
+    @Label("Progressive")
+    public boolean progressive;
+}
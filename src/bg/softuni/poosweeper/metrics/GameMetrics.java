@@ -0,0 +1,209 @@
+package bg.softuni.poosweeper.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the performance of the game in {@link Histogram}s and exposes
+ * them as the {@code bg.softuni.poosweeper:type=GameMetrics} MXBean.
+ * <p>
+ * The hot paths call the static methods with a start time taken from
+ * {@link System#nanoTime()}, so a sample costs two clock reads and a few
+ * atomic increments. When the {@code poosweeper.metrics.dump} system
+ * property names a file, the report is also written to it every
+ * {@code poosweeper.metrics.dumpInterval} seconds and when the game stops,
+ * so slow games can be diagnosed after the fact.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    private static final String OBJECT_NAME = "bg.softuni.poosweeper:type=GameMetrics";
+    private static final String DUMP_PATH = System.getProperty("poosweeper.metrics.dump");
+    private static final long DUMP_INTERVAL_SECONDS = Long.getLong("poosweeper.metrics.dumpInterval", 60L);
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final String REPORT_FORMAT = "Click latency (us):           %s%n"
+            + "Click-to-render latency (us): %s%n"
+            + "Field creation time (us):     %s%n"
+            + "Region size (cells):          %s%n"
+            + "Region open time (us):        %s%n"
+            + "Pulse time (us):              %s%n";
+
+    private static final GameMetrics instance = new GameMetrics();
+
+    private static ScheduledExecutorService dumper;
+    // The start of the last click, which is not drawn yet. Only used on the FX thread.
+    private static long inputNanos;
+
+    private final Histogram clickLatency = new Histogram();
+    private final Histogram clickToRenderLatency = new Histogram();
+    private final Histogram fieldCreationTime = new Histogram();
+    private final Histogram regionSize = new Histogram();
+    private final Histogram regionOpenTime = new Histogram();
+    private final Histogram pulseTime = new Histogram();
+
+    /**
+     * Registers the MXBean and starts the periodic dump, if configured.
+     * Failures are ignored, because the game works without metrics.
+     */
+    public static synchronized void register() {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(instance, name);
+            }
+        } catch (JMException e) {
+            // The metrics are still recorded and dumped.
+        }
+
+        if (DUMP_PATH != null && dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "poosweeper-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleWithFixedDelay(GameMetrics::dump,
+                    DUMP_INTERVAL_SECONDS, DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic dump and writes the final report.
+     */
+    public static synchronized void shutdown() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump();
+        }
+    }
+
+    /**
+     * Records a handled click and remembers it until its changes are drawn.
+     * Called on the FX thread.
+     *
+     * @param startNanos the time the click handling started.
+     */
+    public static void clickHandled(long startNanos) {
+        instance.clickLatency.record(System.nanoTime() - startNanos);
+        inputNanos = startNanos;
+    }
+
+    /**
+     * Records the time since the last click, once all changes are drawn.
+     * Called on the FX thread.
+     */
+    public static void batchRendered() {
+        if (inputNanos != 0) {
+            instance.clickToRenderLatency.record(System.nanoTime() - inputNanos);
+            inputNanos = 0;
+        }
+    }
+
+    /**
+     * Records the time spent getting the field of a new game. Called on the
+     * FX thread, so the fields generated in the background are not recorded
+     * and their workers do not share the histogram.
+     *
+     * @param startNanos the time the new game was requested.
+     */
+    public static void fieldCreated(long startNanos) {
+        instance.fieldCreationTime.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records an opened region.
+     *
+     * @param size       the number of opened cells.
+     * @param startNanos the time the opening started.
+     */
+    public static void regionOpened(int size, long startNanos) {
+        instance.regionOpenTime.record(System.nanoTime() - startNanos);
+        instance.regionSize.record(size);
+    }
+
+    /**
+     * Records the work of the game in a JavaFX pulse.
+     *
+     * @param startNanos the time the work started.
+     */
+    public static void pulseHandled(long startNanos) {
+        instance.pulseTime.record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public HistogramSnapshot getClickLatency() {
+        return this.clickLatency.getSnapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getClickToRenderLatency() {
+        return this.clickToRenderLatency.getSnapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getFieldCreationTime() {
+        return this.fieldCreationTime.getSnapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getRegionSize() {
+        return this.regionSize.getSnapshot(1);
+    }
+
+    @Override
+    public HistogramSnapshot getRegionOpenTime() {
+        return this.regionOpenTime.getSnapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getPulseTime() {
+        return this.pulseTime.getSnapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public String report() {
+        return String.format(Locale.ROOT, REPORT_FORMAT,
+                this.getClickLatency(), this.getClickToRenderLatency(), this.getFieldCreationTime(),
+                this.getRegionSize(), this.getRegionOpenTime(), this.getPulseTime());
+    }
+
+    @Override
+    public void reset() {
+        this.clickLatency.reset();
+        this.clickToRenderLatency.reset();
+        this.fieldCreationTime.reset();
+        this.regionSize.reset();
+        this.regionOpenTime.reset();
+        this.pulseTime.reset();
+    }
+
+    /**
+     * Writes the report to the dump file, replacing it atomically.
+     */
+    private static void dump() {
+
+        Path path = Paths.get(DUMP_PATH);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.write(temporary, instance.report().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The next dump tries again.
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package bg.softuni.poosweeper.metrics;
+
+/**
+ * The management interface of {@link GameMetrics}. The durations are
+ * reported in microseconds.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * Returns the time spent handling a click of the player.
+     *
+     * @return the click handling times.
+     */
+    HistogramSnapshot getClickLatency();
+
+    /**
+     * Returns the time from a click of the player until its changes are
+     * drawn, including progressive reveals spread over several pulses.
+     *
+     * @return the click-to-render times.
+     */
+    HistogramSnapshot getClickToRenderLatency();
+
+    /**
+     * Returns the time spent getting the field of a new game, which is
+     * short when the field was generated in advance.
+     *
+     * @return the field creation times.
+     */
+    HistogramSnapshot getFieldCreationTime();
+
+    /**
+     * Returns the number of cells opened by a single click.
+     *
+     * @return the region sizes in cells.
+     */
+    HistogramSnapshot getRegionSize();
+
+    /**
+     * Returns the time spent opening a region.
+     *
+     * @return the region opening times.
+     */
+    HistogramSnapshot getRegionOpenTime();
+
+    /**
+     * Returns the time the game spends in a JavaFX pulse.
+     *
+     * @return the pulse times.
+     */
+    HistogramSnapshot getPulseTime();
+
+    /**
+     * Formats all metrics as text.
+     *
+     * @return the report.
+     */
+    String report();
+
+    /**
+     * Removes all recorded values.
+     */
+    void reset();
+}
@@ -0,0 +1,155 @@
+package bg.softuni.poosweeper.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values with fixed log-linear buckets, in the
+ * style of HdrHistogram. Values below {@link #SUB_BUCKETS} have a bucket
+ * each; above that every power of two is split into {@link #SUB_BUCKETS}
+ * equal buckets, so a value is reported with a relative error of at most
+ * 1/16 over the whole {@code long} range in less than a thousand buckets.
+ * <p>
+ * Recording a value only increments a few atomic counters, so any thread
+ * may record without locking and without allocating.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            this.counts.set(bucket, 0);
+        }
+        this.count.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest value or 0 if there are none.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return the average or 0 if there are none.
+     */
+    public double getMean() {
+        long count = this.count.get();
+        return count == 0 ? 0 : (double) this.sum.get() / count;
+    }
+
+    /**
+     * Returns the value, which the given share of the recorded values does
+     * not exceed, rounded up to the end of its bucket.
+     *
+     * @param percentile the share in percent, from 0 to 100.
+     * @return the value or 0 if there are none.
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        long count = this.count.get();
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS && count > 0; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(this.max.get(), highestValueOf(bucket));
+            }
+        }
+
+        return this.max.get();
+    }
+
+    /**
+     * Takes a snapshot of the summary values, scaled to another unit.
+     *
+     * @param divisor the number of recorded units in a reported unit, for
+     *                example 1000 to report nanoseconds in microseconds.
+     * @return the snapshot.
+     */
+    public HistogramSnapshot getSnapshot(long divisor) {
+        return new HistogramSnapshot(
+                this.getCount(),
+                this.getMean() / divisor,
+                (double) this.getValueAtPercentile(50) / divisor,
+                (double) this.getValueAtPercentile(90) / divisor,
+                (double) this.getValueAtPercentile(99) / divisor,
+                (double) this.getMax() / divisor);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value the non-negative value.
+     * @return the index of the bucket.
+     */
+    static int bucketOf(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value, which falls into a bucket.
+     *
+     * @param bucket the index of the bucket.
+     * @return the largest value of the bucket.
+     */
+    static long highestValueOf(int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+}
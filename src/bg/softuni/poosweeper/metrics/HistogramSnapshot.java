@@ -0,0 +1,99 @@
+package bg.softuni.poosweeper.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Locale;
+
+/**
+ * The summary values of a {@link Histogram} at one moment. JMX shows it as
+ * a composite value with one item per getter.
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+    private final double mean;
+    private final double median;
+    private final double percentile90;
+    private final double percentile99;
+    private final double max;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param count        the number of recorded values.
+     * @param mean         the average value.
+     * @param median       the 50th percentile.
+     * @param percentile90 the 90th percentile.
+     * @param percentile99 the 99th percentile.
+     * @param max          the largest value.
+     */
+    @ConstructorProperties({"count", "mean", "median", "percentile90", "percentile99", "max"})
+    public HistogramSnapshot(long count, double mean, double median, double percentile90, double percentile99,
+                             double max) {
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.percentile90 = percentile90;
+        this.percentile99 = percentile99;
+        this.max = max;
+    }
+
+    /**
+     * A getter for the {@link #count} field.
+     *
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * A getter for the {@link #mean} field.
+     *
+     * @return the average value.
+     */
+    public double getMean() {
+        return this.mean;
+    }
+
+    /**
+     * A getter for the {@link #median} field.
+     *
+     * @return the 50th percentile.
+     */
+    public double getMedian() {
+        return this.median;
+    }
+
+    /**
+     * A getter for the {@link #percentile90} field.
+     *
+     * @return the 90th percentile.
+     */
+    public double getPercentile90() {
+        return this.percentile90;
+    }
+
+    /**
+     * A getter for the {@link #percentile99} field.
+     *
+     * @return the 99th percentile.
+     */
+    public double getPercentile99() {
+        return this.percentile99;
+    }
+
+    /**
+     * A getter for the {@link #max} field.
+     *
+     * @return the largest value.
+     */
+    public double getMax() {
+        return this.max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count %d, mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, max %.1f",
+                this.count, this.mean, this.median, this.percentile90, this.percentile99, this.max);
+    }
+}
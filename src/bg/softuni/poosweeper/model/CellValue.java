@@ -1,8 +1,9 @@
 package bg.softuni.poosweeper.model;
 
 /**
- * An enumeration that represents all possible states of a matrix like
- * {@link Field#pooCells}.
+ * An enumeration that represents all possible values of a cell in a
+ * {@link Field}. The ordinals of {@link #Empty} to {@link #Eight} match the
+ * number of poos around the cell.
  */
 public enum CellValue {
 
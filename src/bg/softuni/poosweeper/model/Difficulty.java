@@ -28,6 +28,33 @@ public enum Difficulty {
         this.pooCount = pooCount;
     }
 
+    /**
+     * A getter for the {@link #rows} field.
+     *
+     * @return the total number of field rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * A getter for the {@link #columns} field.
+     *
+     * @return the total number of field columns.
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * A getter for the {@link #pooCount} field.
+     *
+     * @return the number of poos on the field.
+     */
+    public int getPooCount() {
+        return this.pooCount;
+    }
+
     /**
      * Invokes the {@link Field#Field(int, int, int)} constructor with the
      * pre-defined enum instance values.
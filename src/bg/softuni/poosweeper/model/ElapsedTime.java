@@ -1,20 +1,37 @@
 package bg.softuni.poosweeper.model;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * A model class that handles the calculation of elapsed time since
  * the game started.
+ * <p>
+ * All instances share a single daemon scheduler thread. The delegate is
+ * called only when the displayed number of seconds changes, and the
+ * formatted values are cached, so a running clock does not allocate.
  */
 public class ElapsedTime {
 
+    private static final long TICK_MILLIS = 100;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final String[] FORMATTED_TIMES = new String[100 * 60];
+    private static final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "poosweeper-clock");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final Consumer<String> action;
-    private Timer timer;
-    private Instant startTime;
+    private ScheduledFuture<?> task;
+    private long startTime;
+    private long pausedElapsedTime;
+    private long publishedSeconds;
+    private boolean running;
 
     /**
      * Creates a new instance with the provided update delegate.
@@ -31,26 +48,105 @@ public class ElapsedTime {
      * Starts a new timer task that updates through the {@link #action} delegate.
      */
     public void start() {
+        this.start(0);
+    }
+
+    /**
+     * Starts a new timer task, which continues counting from the given time,
+     * for example the time of a restored game.
+     *
+     * @param elapsedNanos the initial elapsed time in nanoseconds.
+     */
+    public synchronized void start(long elapsedNanos) {
+
+        this.startTime = System.nanoTime();
+        this.pausedElapsedTime = elapsedNanos;
+        this.publishedSeconds = -1;
+        this.running = true;
+
+        this.task = scheduler.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the timer task. The elapsed time stays available through
+     * {@link #getElapsedNanos()}.
+     */
+    public synchronized void stop() {
+        this.pause();
+        if (this.task != null) {
+            this.task.cancel(false);
+            this.task = null;
+        }
+    }
 
-        this.timer = new Timer();
-        this.startTime = Instant.now();
+    /**
+     * Pauses the timer, for example while the window is minimized. A stopped
+     * or already paused timer is not affected.
+     */
+    public synchronized void pause() {
+        if (this.running) {
+            this.pausedElapsedTime = this.getElapsedNanos();
+            this.running = false;
+        }
+    }
 
-        this.timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                Duration elapsedTime = Duration.between(startTime, Instant.now());
-                action.accept(formatTime(elapsedTime.getSeconds() / 60, elapsedTime.getSeconds() % 60));
-            }
-        }, 0, 500);
+    /**
+     * Resumes a paused timer. A stopped timer is not affected.
+     */
+    public synchronized void resume() {
+        if (!this.running && this.task != null) {
+            this.startTime = System.nanoTime();
+            this.running = true;
+        }
     }
 
     /**
-     * Stops the timer task. It is important to always call this method before
-     * closing the application, because if left running the timer will hang the
-     * parent process in a zombie state.
+     * Returns the time the timer has been running, excluding pauses.
+     *
+     * @return the elapsed time in nanoseconds.
      */
-    public void stop() {
-        this.timer.cancel();
+    public synchronized long getElapsedNanos() {
+
+        if (!this.running) {
+            return this.pausedElapsedTime;
+        }
+
+        return this.pausedElapsedTime + System.nanoTime() - this.startTime;
+    }
+
+    /**
+     * Called by the shared scheduler. Passes the formatted time to the
+     * {@link #action} delegate if the displayed seconds have changed.
+     */
+    private synchronized void tick() {
+
+        long seconds = this.getElapsedNanos() / NANOS_PER_SECOND;
+
+        if (seconds != this.publishedSeconds) {
+            this.publishedSeconds = seconds;
+            this.action.accept(formatTime(seconds));
+        }
+    }
+
+    /**
+     * Formats the time value in a visually pleasing way. Values below 100
+     * minutes are formatted once and then served from a cache.
+     *
+     * @param elapsedSeconds the elapsed seconds.
+     * @return the formatted value.
+     */
+    private static String formatTime(long elapsedSeconds) {
+
+        if (elapsedSeconds >= FORMATTED_TIMES.length) {
+            return formatTime(elapsedSeconds / 60, elapsedSeconds % 60);
+        }
+
+        int index = (int) elapsedSeconds;
+        if (FORMATTED_TIMES[index] == null) {
+            FORMATTED_TIMES[index] = formatTime(elapsedSeconds / 60, elapsedSeconds % 60);
+        }
+
+        return FORMATTED_TIMES[index];
     }
 
     /**
@@ -60,7 +156,7 @@ public class ElapsedTime {
      * @param seconds the elapsed seconds.
      * @return the formatted value.
      */
-    private String formatTime(long minutes, long seconds) {
+    private static String formatTime(long minutes, long seconds) {
 
         String result = "";
 
@@ -1,22 +1,63 @@
 package bg.softuni.poosweeper.model;
 
+import bg.softuni.poosweeper.events.BoardGeneratedEvent;
+
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The main model class containing the majority of game state and behaviour.
+ * <p>
+ * The whole board is kept in a single {@link #cells} byte array indexed by
+ * {@code row * columns + column}. Every byte packs the hint value together
+ * with the poo, opened and flagged state of its cell, so no per-cell objects
+ * are allocated regardless of the board size.
+ * <p>
+ * The number of flags around every cell is kept up to date in
+ * {@link #adjacentFlags}, so checking whether a number can be chorded does
+ * not scan its neighbours. The array is allocated with the first flag.
+ * <p>
+ * The indices of the poos are captured when they are placed, and the
+ * indices of the flags are appended to {@link #flagIndices} whenever a flag
+ * is placed. Removed flags are dropped from that list lazily, when it runs
+ * out of space or is read, so the game over reveal visits only the poos and
+ * the flags instead of the whole board.
+ * <p>
+ * When dirty tracking is enabled, every cell which is opened or flagged is
+ * appended to a list of dirty cells, which the view takes once per frame to
+ * draw only the changed cells. Simulations leave it disabled.
  */
 public class Field {
 
-    private static final Random random = new Random();
+    private static final CellValue[] VALUES = CellValue.values();
+
+    private static final int VALUE_MASK = 0x0F;
+    static final int POO_BIT = 0x10;
+    static final int OPEN_BIT = 0x20;
+    static final int FLAG_BIT = 0x40;
+    private static final int VISITED_BIT = 0x80;
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+    private static final int HINT_TASK_THRESHOLD = 1 << 16;
+    private static final int MAX_RETAINED_DIRTY_CAPACITY = 1 << 12;
 
     private final int rows;
     private final int columns;
     private final int pooCount;
     private final int totalCount;
 
-    private final CellValue[][] pooCells;
-    private final HashSet<Cell> flagsCells;
-    private final HashSet<Cell> openedCells;
+    private final byte[] cells;
+    private byte[] adjacentFlags;
+    private int[] pooIndices;
+    private int[] flagIndices = new int[INITIAL_QUEUE_CAPACITY];
+    private int flagIndexCount;
+    private int[] dirtyIndices;
+    private int dirtyCount;
+    private int flagsCount;
+    private int openedCount;
+
+    private int[] queue;
+    private int queueSize;
 
     /**
      * Creates an instance with a given rows, columns and number of poos
@@ -26,17 +67,118 @@ public class Field {
      * @param pooCount represents the number of poos on the field.
      */
     public Field(int rows, int columns, int pooCount) {
+        this(rows, columns, pooCount, new SplittableRandom(), -1, -1);
+    }
+
+    /**
+     * Creates an instance with a given rows, columns and number of poos, whose
+     * poos are placed by a random generator with the given seed. Fields
+     * created with the same arguments are identical.
+     *
+     * @param rows     represents the number of rows on the field.
+     * @param columns  represents the number of columns on the field.
+     * @param pooCount represents the number of poos on the field.
+     * @param seed     the seed for placing the poos.
+     */
+    public Field(int rows, int columns, int pooCount, long seed) {
+        this(rows, columns, pooCount, new SplittableRandom(seed), -1, -1);
+    }
+
+    /**
+     * Creates an instance with a given rows, columns and number of poos, whose
+     * poos are placed by a random generator with the given seed outside the
+     * 3x3 square around the safe cell, so that clicking the safe cell first
+     * always opens an empty region. Fields created with the same arguments
+     * are identical.
+     *
+     * @param rows       represents the number of rows on the field.
+     * @param columns    represents the number of columns on the field.
+     * @param pooCount   represents the number of poos on the field.
+     * @param seed       the seed for placing the poos.
+     * @param safeRow    the row of the safe cell.
+     * @param safeColumn the column of the safe cell.
+     */
+    public Field(int rows, int columns, int pooCount, long seed, int safeRow, int safeColumn) {
+        this(rows, columns, pooCount, new SplittableRandom(seed), safeRow, safeColumn);
+    }
+
+    /**
+     * Creates an instance with a given rows, columns and number of poos, whose
+     * poos are placed by the given random generator.
+     *
+     * @param rows       represents the number of rows on the field.
+     * @param columns    represents the number of columns on the field.
+     * @param pooCount   represents the number of poos on the field.
+     * @param random     the generator used only by this instance.
+     * @param safeRow    the row of the safe cell or -1 if there is none.
+     * @param safeColumn the column of the safe cell or -1 if there is none.
+     */
+    private Field(int rows, int columns, int pooCount, SplittableRandom random, int safeRow, int safeColumn) {
+
+        BoardGeneratedEvent event = new BoardGeneratedEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+
+        this.rows = rows;
+        this.columns = columns;
+        this.pooCount = pooCount;
+        this.totalCount = rows * columns;
+        this.cells = new byte[this.totalCount];
+        this.queue = new int[Math.max(1, Math.min(INITIAL_QUEUE_CAPACITY, this.totalCount))];
+
+        placePoo(random, safeRow, safeColumn);
+        long placedNanos = System.nanoTime();
+        placeHints();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.columns = columns;
+            event.pooCount = pooCount;
+            event.placementTime = placedNanos - startNanos;
+            event.hintTime = System.nanoTime() - placedNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Restores an instance from saved cells, which contain only the poo,
+     * opened and flagged bits. The hints are computed again. The array is
+     * used as the storage of the new instance.
+     *
+     * @param rows        represents the number of rows on the field.
+     * @param columns     represents the number of columns on the field.
+     * @param pooCount    represents the number of poos on the field.
+     * @param cells       the saved cells, indexed by {@code row * columns + column}.
+     * @param openedCount the number of opened cells.
+     * @param flagsCount  the number of flagged cells.
+     * @see SavedGame
+     */
+    Field(int rows, int columns, int pooCount, byte[] cells, int openedCount, int flagsCount) {
 
         this.rows = rows;
         this.columns = columns;
         this.pooCount = pooCount;
         this.totalCount = rows * columns;
-        this.pooCells = new CellValue[rows][columns];
-        this.flagsCells = new HashSet<>();
-        this.openedCells = new HashSet<>();
+        this.cells = cells;
+        this.openedCount = openedCount;
+        this.flagsCount = flagsCount;
+        this.queue = new int[Math.max(1, Math.min(INITIAL_QUEUE_CAPACITY, this.totalCount))];
 
-        placePoo();
         placeHints();
+
+        this.pooIndices = new int[pooCount];
+        int pooIndexCount = 0;
+
+        for (int index = 0; index < this.totalCount; index++) {
+            if ((cells[index] & POO_BIT) != 0) {
+                this.pooIndices[pooIndexCount++] = index;
+            }
+            if ((cells[index] & FLAG_BIT) != 0) {
+                this.addFlagIndex(index);
+                this.addAdjacentFlags(index, 1);
+            }
+        }
     }
 
     /**
@@ -63,7 +205,16 @@ public class Field {
      * @return how many poos there are on the field.
      */
     public int getPooCount() {
-        return this.pooCount - this.flagsCells.size();
+        return this.pooCount - this.flagsCount;
+    }
+
+    /**
+     * Returns the number of poos regardless of the flags.
+     *
+     * @return how many poos were placed on the field.
+     */
+    public int getTotalPooCount() {
+        return this.pooCount;
     }
 
     /**
@@ -75,18 +226,135 @@ public class Field {
      */
     public boolean toggleFlag(int row, int column) {
 
-        Cell cell = new Cell(row, column);
+        int index = this.indexOf(row, column);
 
-        if (this.flagsCells.contains(cell)) {
-            this.flagsCells.remove(cell);
+        if ((this.cells[index] & FLAG_BIT) != 0) {
+            this.cells[index] &= ~FLAG_BIT;
+            this.flagsCount--;
+            this.addAdjacentFlags(index, -1);
+            this.markDirty(index);
             return false;
         } else if (this.getPooCount() > 0) {
-            this.flagsCells.add(cell);
+            this.cells[index] |= FLAG_BIT;
+            this.flagsCount++;
+            this.addFlagIndex(index);
+            this.addAdjacentFlags(index, 1);
+            this.markDirty(index);
             return true;
         }
         return false;
     }
 
+    /**
+     * Returns the cells with a poo.
+     *
+     * @return the indices ({@code row * columns + column}) of all poos.
+     */
+    public int[] getPooIndices() {
+        return this.pooIndices.clone();
+    }
+
+    /**
+     * Returns the flagged cells.
+     *
+     * @return the indices ({@code row * columns + column}) of all flags.
+     */
+    public int[] getFlagIndices() {
+        this.compactFlagIndices();
+        return Arrays.copyOf(this.flagIndices, this.flagIndexCount);
+    }
+
+    /**
+     * Starts recording the cells, which are opened or flagged from now on.
+     *
+     * @see #takeDirtyIndices()
+     */
+    public void enableDirtyTracking() {
+        if (this.dirtyIndices == null) {
+            this.dirtyIndices = new int[INITIAL_QUEUE_CAPACITY];
+        }
+    }
+
+    /**
+     * Returns the cells changed since the last call and clears the list. A
+     * cell flagged and unflagged again may be returned more than once.
+     *
+     * @return the indices ({@code row * columns + column}) of the changed
+     * cells in the order of the changes, or an empty array if dirty tracking
+     * is not enabled.
+     * @see #enableDirtyTracking()
+     */
+    public int[] takeDirtyIndices() {
+
+        if (this.dirtyCount == 0) {
+            return new int[0];
+        }
+
+        int[] result = Arrays.copyOf(this.dirtyIndices, this.dirtyCount);
+        this.dirtyCount = 0;
+
+        if (this.dirtyIndices.length > MAX_RETAINED_DIRTY_CAPACITY) {
+            this.dirtyIndices = new int[INITIAL_QUEUE_CAPACITY];
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks if the cell with the given coordinates can be chorded: it is an
+     * opened number with exactly as many flags around it as its value.
+     *
+     * @param row    represents the row of the cell.
+     * @param column represents the column of the cell.
+     * @return {@code true} if the cell can be chorded; otherwise, {@code false}.
+     */
+    public boolean canChord(int row, int column) {
+
+        if (this.isOutside(row, column)) {
+            return false;
+        }
+
+        int index = this.indexOf(row, column);
+        int cell = this.cells[index];
+        int flags = this.adjacentFlags == null ? 0 : this.adjacentFlags[index];
+
+        return (cell & OPEN_BIT) != 0 && (cell & VALUE_MASK) != 0 && (cell & VALUE_MASK) == flags;
+    }
+
+    /**
+     * Returns the cells, which a chord on the cell with the given coordinates
+     * opens: its closed neighbours without a flag. Each of them opens as if
+     * it was clicked, so it may be a poo or start a flood fill.
+     *
+     * @param row    represents the row of the chorded cell.
+     * @param column represents the column of the chorded cell.
+     * @return the indices ({@code row * columns + column}) of the cells, or
+     * an empty array if the cell cannot be chorded.
+     * @see #canChord(int, int)
+     */
+    public int[] getChordIndices(int row, int column) {
+
+        if (!this.canChord(row, column)) {
+            return new int[0];
+        }
+
+        int[] result = new int[8];
+        int count = 0;
+        int firstColumn = Math.max(0, column - 1);
+        int lastColumn = Math.min(this.columns - 1, column + 1);
+
+        for (int nearRow = Math.max(0, row - 1); nearRow <= Math.min(this.rows - 1, row + 1); nearRow++) {
+            for (int nearColumn = firstColumn; nearColumn <= lastColumn; nearColumn++) {
+                int index = this.indexOf(nearRow, nearColumn);
+                if ((this.cells[index] & (OPEN_BIT | FLAG_BIT)) == 0) {
+                    result[count++] = index;
+                }
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
     /**
      * Checks if there is a Poo on the cell with the given coordinates.
      *
@@ -95,7 +363,7 @@ public class Field {
      * @return True if the cell is Poo and False if it isn't.
      */
     public boolean isPoo(int row, int column) {
-        return getCellValue(row, column) == CellValue.Poo;
+        return !this.isOutside(row, column) && (this.cells[this.indexOf(row, column)] & POO_BIT) != 0;
     }
 
     /**
@@ -105,9 +373,33 @@ public class Field {
      * @return return the value of the cell.
      */
     public CellValue openCell(Cell cell) {
-        this.openedCells.add(cell);
-        this.flagsCells.remove(cell);
-        return this.getCellValue(cell.getRow(), cell.getColumn());
+        return this.openCell(cell.getRow(), cell.getColumn());
+    }
+
+    /**
+     * Opens the cell with the given coordinates and removes its flag, if any.
+     *
+     * @param row    represents the row of the cell.
+     * @param column represents the column of the cell.
+     * @return return the value of the cell.
+     */
+    public CellValue openCell(int row, int column) {
+
+        int index = this.indexOf(row, column);
+        int cell = this.cells[index];
+
+        if ((cell & OPEN_BIT) == 0) {
+            this.openedCount++;
+            this.markDirty(index);
+        }
+
+        if ((cell & FLAG_BIT) != 0) {
+            this.flagsCount--;
+            this.addAdjacentFlags(index, -1);
+        }
+
+        this.cells[index] = (byte) ((cell | OPEN_BIT) & ~FLAG_BIT);
+        return valueOf(cell);
     }
 
     /**
@@ -118,8 +410,7 @@ public class Field {
      * @return True if the cell is opened. False if the cell is not opened.
      */
     public boolean isOpen(int row, int col) {
-        Cell cell = new Cell(row, col);
-        return this.openedCells.contains(cell);
+        return !this.isOutside(row, col) && (this.cells[this.indexOf(row, col)] & OPEN_BIT) != 0;
     }
 
     /**
@@ -130,8 +421,7 @@ public class Field {
      * @return True if the cell has flag. False if the cell does not have a flag.
      */
     public boolean isFlagged(int row, int col) {
-        Cell cell = new Cell(row, col);
-        return this.flagsCells.contains(cell);
+        return !this.isOutside(row, col) && (this.cells[this.indexOf(row, col)] & FLAG_BIT) != 0;
     }
 
     /**
@@ -147,7 +437,7 @@ public class Field {
             return CellValue.Empty;
         }
 
-        return this.pooCells[row][column];
+        return valueOf(this.cells[this.indexOf(row, column)]);
     }
 
     /**
@@ -156,80 +446,239 @@ public class Field {
      * @return True if it is solved. False if it is not solved.
      */
     public boolean isSolved() {
-        return this.openedCells.size() + this.pooCount == this.totalCount;
+        return this.openedCount + this.pooCount == this.totalCount;
     }
 
     /**
-     * Returns the values of the adjacent cells to the cell with the given coordinates.
+     * Returns the cells of the region that opens when the cell with the
+     * given coordinates is clicked.
      *
      * @param row    represents the row of the given cell.
      * @param column represents the column of the given cell.
-     * @return a Set with the Cells around the current cell.
+     * @return a list with the cells of the flood filled region, in the order
+     * of the traversal, starting with the given cell.
+     * @see #getAdjacentIndices(int, int)
      */
     public Collection<Cell> getAdjacentCells(int row, int column) {
 
+        int[] indices = this.getAdjacentIndices(row, column);
+        Collection<Cell> result = new ArrayList<>(indices.length);
+
+        for (int index : indices) {
+            result.add(new Cell(index / this.columns, index % this.columns));
+        }
+
+        return result;
+    }
+
+    /**
+     * Flood fills the region that opens when the cell with the given
+     * coordinates is clicked. The traversal uses a reusable index queue and
+     * marks visited cells directly in {@link #cells}, so every cell is queued
+     * at most once and no per-cell objects are allocated.
+     * <p>
+     * Cells which are already open are not traversed again, because all
+     * neighbours of an open empty cell are already open themselves.
+     *
+     * @param row    represents the row of the given cell.
+     * @param column represents the column of the given cell.
+     * @return the indices ({@code row * columns + column}) of the cells in the
+     * region, starting with the given cell.
+     */
+    public int[] getAdjacentIndices(int row, int column) {
+
         if (this.isPoo(row, column)) {
             throw new IllegalStateException("Cannot get adjacent cells for a poo.");
         }
 
-        Collection<Cell> result = new HashSet<>();
-        Queue<Cell> queue = new LinkedList<>();
-        Cell current = new Cell(row, column);
-        queue.add(current);
+        int start = this.indexOf(row, column);
+        this.cells[start] |= VISITED_BIT;
+        this.queue[0] = start;
+        this.queueSize = 1;
+
+        for (int head = 0; head < this.queueSize; head++) {
 
-        while (!queue.isEmpty()) {
+            int index = this.queue[head];
+            if ((this.cells[index] & (VALUE_MASK | POO_BIT)) != 0) {
+                continue;
+            }
+
+            row = index / this.columns;
+            column = index - row * this.columns;
 
-            current = queue.remove();
-            row = current.getRow();
-            column = current.getColumn();
+            boolean hasNorth = row > 0;
+            boolean hasSouth = row < this.rows - 1;
+            boolean hasWest = column > 0;
+            boolean hasEast = column < this.columns - 1;
 
-            if (this.pooCells[row][column] == CellValue.Empty && !result.contains(current)) {
-                this.addAdjacentCell(queue, row - 1, column - 1);
-                this.addAdjacentCell(queue, row - 1, column);
-                this.addAdjacentCell(queue, row - 1, column + 1);
-                this.addAdjacentCell(queue, row, column - 1);
-                this.addAdjacentCell(queue, row, column + 1);
-                this.addAdjacentCell(queue, row + 1, column - 1);
-                this.addAdjacentCell(queue, row + 1, column);
-                this.addAdjacentCell(queue, row + 1, column + 1);
+            if (hasNorth) {
+                if (hasWest) {
+                    this.addAdjacentCell(index - this.columns - 1);  // NW
+                }
+                this.addAdjacentCell(index - this.columns);          // N
+                if (hasEast) {
+                    this.addAdjacentCell(index - this.columns + 1);  // NE
+                }
             }
+            if (hasWest) {
+                this.addAdjacentCell(index - 1);                     // W
+            }
+            if (hasEast) {
+                this.addAdjacentCell(index + 1);                     // E
+            }
+            if (hasSouth) {
+                if (hasWest) {
+                    this.addAdjacentCell(index + this.columns - 1);  // SW
+                }
+                this.addAdjacentCell(index + this.columns);          // S
+                if (hasEast) {
+                    this.addAdjacentCell(index + this.columns + 1);  // SE
+                }
+            }
+        }
 
-            result.add(current);
+        int[] result = Arrays.copyOf(this.queue, this.queueSize);
+        for (int index : result) {
+            this.cells[index] &= ~VISITED_BIT;
         }
 
         return result;
     }
 
     /**
-     * Places poos randomly on the field.
+     * Returns the storage of the cells for saving, see {@link SavedGame}.
+     *
+     * @return the cells, indexed by {@code row * columns + column}.
      */
-    private void placePoo() {
+    byte[] getCells() {
+        return this.cells;
+    }
 
-        if (this.totalCount < this.getPooCount()) {
+    /**
+     * Places poos randomly on the field using Floyd's sampling algorithm,
+     * which picks every cell with a single random number and never retries.
+     * When more than half of the allowed cells are poo, they are filled with
+     * poos and the remaining empty cells ("holes") are sampled instead.
+     * <p>
+     * The cells of the safe square are excluded by sampling ranks among the
+     * allowed cells only and mapping every rank to its cell index.
+     *
+     * @param random     the generator used to pick the cells.
+     * @param safeRow    the row of the safe cell or -1 if there is none.
+     * @param safeColumn the column of the safe cell or -1 if there is none.
+     */
+    private void placePoo(SplittableRandom random, int safeRow, int safeColumn) {
+
+        int firstSafeRow = 0;
+        int safeHeight = 0;
+        int firstSafeColumn = 0;
+        int safeWidth = 0;
+
+        if (safeRow >= 0) {
+            firstSafeRow = Math.max(0, safeRow - 1);
+            safeHeight = Math.min(this.rows - 1, safeRow + 1) - firstSafeRow + 1;
+            firstSafeColumn = Math.max(0, safeColumn - 1);
+            safeWidth = Math.min(this.columns - 1, safeColumn + 1) - firstSafeColumn + 1;
+        }
+
+        int allowedCount = this.totalCount - safeHeight * safeWidth;
+
+        if (allowedCount < this.getPooCount()) {
             throw new IllegalArgumentException("The poo's count can't be greater than the count of filed cells!");
         }
-        for (int pooPlaced = 0; pooPlaced < this.pooCount; ) {
 
-            int row = random.nextInt(this.rows);
-            int column = random.nextInt(this.columns);
+        this.pooIndices = new int[this.pooCount];
 
-            if (this.pooCells[row][column] != CellValue.Poo) {
-                this.pooCells[row][column] = CellValue.Poo;
-                pooPlaced++;
+        boolean placeHoles = this.pooCount > allowedCount / 2;
+        int background = placeHoles ? POO_BIT : 0;
+        int sampleCount = placeHoles ? allowedCount - this.pooCount : this.pooCount;
+
+        if (placeHoles) {
+            Arrays.fill(this.cells, (byte) POO_BIT);
+            for (int row = firstSafeRow; row < firstSafeRow + safeHeight; row++) {
+                Arrays.fill(this.cells, row * this.columns + firstSafeColumn,
+                        row * this.columns + firstSafeColumn + safeWidth, (byte) 0);
             }
         }
+
+        int cellsBeforeSafeRows = firstSafeRow * this.columns;
+        int allowedPerSafeRow = this.columns - safeWidth;
+        int allowedInSafeRows = safeHeight * allowedPerSafeRow;
+        int cellsAfterSafeRows = (firstSafeRow + safeHeight) * this.columns;
+
+        for (int last = allowedCount - sampleCount; last < allowedCount; last++) {
+
+            int rank = random.nextInt(last + 1);
+            int index = allowedIndex(rank, cellsBeforeSafeRows, allowedPerSafeRow, allowedInSafeRows,
+                    cellsAfterSafeRows, firstSafeRow, firstSafeColumn, safeWidth);
+
+            if ((this.cells[index] & POO_BIT) != background) {
+                index = allowedIndex(last, cellsBeforeSafeRows, allowedPerSafeRow, allowedInSafeRows,
+                        cellsAfterSafeRows, firstSafeRow, firstSafeColumn, safeWidth);
+            }
+
+            this.cells[index] ^= POO_BIT;
+
+            if (!placeHoles) {
+                this.pooIndices[last - allowedCount + sampleCount] = index;
+            }
+        }
+
+        if (placeHoles) {
+            int pooIndexCount = 0;
+            for (int index = 0; index < this.totalCount; index++) {
+                if ((this.cells[index] & POO_BIT) != 0) {
+                    this.pooIndices[pooIndexCount++] = index;
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the rank of an allowed cell to its index, skipping the cells of
+     * the safe square. Without a safe square the mapping is the identity.
+     *
+     * @param rank                the rank among the allowed cells.
+     * @param cellsBeforeSafeRows the number of cells before the first safe row.
+     * @param allowedPerSafeRow   the number of allowed cells in a safe row.
+     * @param allowedInSafeRows   the number of allowed cells in all safe rows.
+     * @param cellsAfterSafeRows  the index of the first cell after the safe rows.
+     * @param firstSafeRow        the first row of the safe square.
+     * @param firstSafeColumn     the first column of the safe square.
+     * @param safeWidth           the number of columns of the safe square.
+     * @return the index of the cell.
+     */
+    private int allowedIndex(int rank, int cellsBeforeSafeRows, int allowedPerSafeRow, int allowedInSafeRows,
+                             int cellsAfterSafeRows, int firstSafeRow, int firstSafeColumn, int safeWidth) {
+
+        if (rank < cellsBeforeSafeRows) {
+            return rank;
+        }
+
+        rank -= cellsBeforeSafeRows;
+
+        if (rank >= allowedInSafeRows) {
+            return cellsAfterSafeRows + rank - allowedInSafeRows;
+        }
+
+        int row = firstSafeRow + rank / allowedPerSafeRow;
+        int column = rank % allowedPerSafeRow;
+
+        return row * this.columns + (column < firstSafeColumn ? column : column + safeWidth);
     }
 
     /**
-     * Places hints according to the placed poos on the filed.
+     * Places hints according to the placed poos on the filed. Big fields
+     * are split into row stripes computed in parallel by {@link HintTask}.
      */
     private void placeHints() {
-        for (int row = 0; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                if (this.pooCells[row][column] != CellValue.Poo) {
-                    this.pooCells[row][column] = this.pooNear(row, column);
-                }
-            }
+
+        HintTask task = new HintTask(0, this.rows);
+
+        if (this.totalCount <= HINT_TASK_THRESHOLD) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
         }
     }
 
@@ -245,53 +694,209 @@ public class Field {
     }
 
     /**
-     * Calculates the number of the poos around the cell with the given coordinates.
+     * Calculates the index of the given coordinates in the {@link #cells} array.
      *
-     * @param row    represents the row of the given cell.
-     * @param column represents the column of the given cell.
-     * @return the numbers of the Poos in the Cells around
+     * @param row    represents given row value.
+     * @param column represents given column value.
+     * @return the zero-based index of the cell.
+     */
+    private int indexOf(int row, int column) {
+        return row * this.columns + column;
+    }
+
+    /**
+     * Appends a changed cell to {@link #dirtyIndices}, if dirty tracking is
+     * enabled.
+     *
+     * @param index the index of the changed cell.
      */
-    private CellValue pooNear(int row, int column) {
+    private void markDirty(int index) {
 
-        int hintValue = 0;
+        if (this.dirtyIndices == null) {
+            return;
+        }
 
-        hintValue += this.getPoo(row - 1, column - 1);  // NW
-        hintValue += this.getPoo(row - 1, column);      // N
-        hintValue += this.getPoo(row - 1, column + 1);  // NE
-        hintValue += this.getPoo(row, column - 1);      // W
-        hintValue += this.getPoo(row, column + 1);      // E
-        hintValue += this.getPoo(row + 1, column - 1);  // SW
-        hintValue += this.getPoo(row + 1, column);      // S
-        hintValue += this.getPoo(row + 1, column + 1);  // SE
+        if (this.dirtyCount == this.dirtyIndices.length) {
+            this.dirtyIndices = Arrays.copyOf(this.dirtyIndices, this.dirtyCount * 2);
+        }
 
-        return CellValue.values()[hintValue];
+        this.dirtyIndices[this.dirtyCount++] = index;
     }
 
     /**
-     * Checks if the cell with the given coordinates contains a poo.
+     * Appends a new flag to {@link #flagIndices}. When the list is full, the
+     * removed flags are dropped first, and the list grows only if it is
+     * still more than half full.
      *
-     * @param row    represents the given row.
-     * @param column represents the given column.
+     * @param index the index of the flagged cell.
+     */
+    private void addFlagIndex(int index) {
+
+        if (this.flagIndexCount == this.flagIndices.length) {
+            this.compactFlagIndices();
+            if (this.flagIndexCount > this.flagIndices.length / 2) {
+                this.flagIndices = Arrays.copyOf(this.flagIndices, this.flagIndices.length * 2);
+            }
+        }
+
+        this.flagIndices[this.flagIndexCount++] = index;
+    }
+
+    /**
+     * Drops the cells, which are no longer flagged, from {@link #flagIndices},
+     * together with the duplicates of cells flagged more than once. The
+     * cells already kept are marked with the visited bit meanwhile.
+     */
+    private void compactFlagIndices() {
+
+        int kept = 0;
+
+        for (int i = 0; i < this.flagIndexCount; i++) {
+            int index = this.flagIndices[i];
+            if ((this.cells[index] & (FLAG_BIT | VISITED_BIT)) == FLAG_BIT) {
+                this.cells[index] |= VISITED_BIT;
+                this.flagIndices[kept++] = index;
+            }
+        }
+
+        for (int i = 0; i < kept; i++) {
+            this.cells[this.flagIndices[i]] &= ~VISITED_BIT;
+        }
+
+        this.flagIndexCount = kept;
+    }
+
+    /**
+     * Adds a flag to or removes it from the flag counts of the neighbours of
+     * a cell.
+     *
+     * @param index the index of the flagged cell.
+     * @param delta 1 for a new flag, -1 for a removed one.
+     */
+    private void addAdjacentFlags(int index, int delta) {
+
+        if (this.adjacentFlags == null) {
+            this.adjacentFlags = new byte[this.totalCount];
+        }
+
+        int row = index / this.columns;
+        int column = index - row * this.columns;
+        int firstColumn = Math.max(0, column - 1);
+        int lastColumn = Math.min(this.columns - 1, column + 1);
+
+        for (int nearRow = Math.max(0, row - 1); nearRow <= Math.min(this.rows - 1, row + 1); nearRow++) {
+            for (int nearColumn = firstColumn; nearColumn <= lastColumn; nearColumn++) {
+                this.adjacentFlags[this.indexOf(nearRow, nearColumn)] += delta;
+            }
+        }
+
+        this.adjacentFlags[index] -= delta;
+    }
+
+    /**
+     * Decodes the {@link CellValue} packed in a single cell state.
+     *
+     * @param cell the packed cell state from the {@link #cells} array.
+     * @return the value of the cell.
+     */
+    private static CellValue valueOf(int cell) {
+        return (cell & POO_BIT) != 0 ? CellValue.Poo : VALUES[cell & VALUE_MASK];
+    }
+
+    /**
+     * Returns 1 if the packed cell state contains a poo and 0 otherwise,
+     * without branching.
+     *
+     * @param cell the packed cell state from the {@link #cells} array.
      * @return 1 if the cell contains a poo. 0 if the cell does not contains a poo.
      */
-    private int getPoo(int row, int column) {
-        return this.isPoo(row, column) ? 1 : 0;
+    private static int pooBit(int cell) {
+        return (cell >> 4) & 1;
     }
 
     /**
-     * Adds an adjacent cell on the given row/column coordinates
-     * to the queue for further traversal.
+     * Adds an adjacent cell with the given index to the flood fill queue for
+     * further traversal, unless it is a poo, already open or already queued.
      *
-     * @param queue  the queue to add the adjacent cell to.
-     * @param row    represents the given row.
-     * @param column represents the given column.
+     * @param index the index of the adjacent cell in the {@link #cells} array.
      */
-    private void addAdjacentCell(Queue<Cell> queue, int row, int column) {
+    private void addAdjacentCell(int index) {
 
-        if (isOutside(row, column) || isPoo(row, column)) {
+        if ((this.cells[index] & (POO_BIT | OPEN_BIT | VISITED_BIT)) != 0) {
             return;
         }
 
-        queue.add(new Cell(row, column));
+        if (this.queueSize == this.queue.length) {
+            this.queue = Arrays.copyOf(this.queue, Math.min(this.queue.length * 2, this.totalCount));
+        }
+
+        this.cells[index] |= VISITED_BIT;
+        this.queue[this.queueSize++] = index;
+    }
+
+    /**
+     * Calculates the hints for a stripe of rows. Stripes larger than
+     * {@link #HINT_TASK_THRESHOLD} cells are split in half and computed in
+     * parallel on the fork/join pool.
+     * <p>
+     * The number of poos around a cell is computed as a separable 3x3 box
+     * sum over the poo bits: every column of the stripe row is first summed
+     * vertically with its upper and lower neighbour, then three adjacent
+     * vertical sums are added horizontally and the cell's own poo is
+     * subtracted. Both passes are free of per-cell branches.
+     */
+    private class HintTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+
+        /**
+         * Creates a task for the rows in the range [{@code fromRow}, {@code toRow}).
+         *
+         * @param fromRow the first row of the stripe, inclusive.
+         * @param toRow   the last row of the stripe, exclusive.
+         */
+        HintTask(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+
+            int stripeRows = this.toRow - this.fromRow;
+
+            if (stripeRows > 1 && (long) stripeRows * columns > HINT_TASK_THRESHOLD) {
+                int middleRow = this.fromRow + stripeRows / 2;
+                invokeAll(new HintTask(this.fromRow, middleRow), new HintTask(middleRow, this.toRow));
+                return;
+            }
+
+            // Padded with a zero column on each side for the horizontal pass.
+            int[] vertical = new int[columns + 2];
+
+            for (int row = this.fromRow; row < this.toRow; row++) {
+
+                int base = row * columns;
+                int hasAbove = row > 0 ? 1 : 0;
+                int hasBelow = row < rows - 1 ? 1 : 0;
+                int above = base - hasAbove * columns;
+                int below = base + hasBelow * columns;
+
+                for (int column = 0; column < columns; column++) {
+                    vertical[column + 1] = pooBit(cells[base + column])
+                            + hasAbove * pooBit(cells[above + column])
+                            + hasBelow * pooBit(cells[below + column]);
+                }
+
+                for (int column = 0; column < columns; column++) {
+                    int poo = pooBit(cells[base + column]);
+                    int hint = vertical[column] + vertical[column + 1] + vertical[column + 2] - poo;
+                    cells[base + column] |= hint * (1 - poo);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,159 @@
+package bg.softuni.poosweeper.model;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A supply of ready {@link Field} instances for every {@link Difficulty}.
+ * Fields are generated on a background daemon thread into a small bounded
+ * queue per difficulty, so starting a new game usually takes a field that
+ * already exists instead of generating one on the calling thread. When no
+ * field is ready, a fallback factory creates one on the calling thread.
+ * <p>
+ * The factories may return {@code null} when they fail to create a field.
+ * The background generation then tries again after the refill delay.
+ */
+public class FieldPool {
+
+    private final Map<Difficulty, BlockingQueue<Field>> fields;
+    private final Map<Difficulty, AtomicBoolean> refilling;
+    private final ScheduledExecutorService executor;
+    private final long refillDelayMillis;
+    private final Function<Difficulty, Field> factory;
+    private final Function<Difficulty, Field> fallback;
+
+    /**
+     * Creates a pool and starts filling it in the background.
+     *
+     * @param depth             the number of ready fields kept for every difficulty.
+     * @param refillDelayMillis the delay between generating two fields for
+     *                          the same difficulty.
+     */
+    public FieldPool(int depth, long refillDelayMillis) {
+        this(depth, refillDelayMillis, EnumSet.allOf(Difficulty.class),
+                Difficulty::createField, Difficulty::createField);
+    }
+
+    /**
+     * Creates a pool of fields made by the given factory and starts filling
+     * it in the background. Only the given difficulties are generated in
+     * advance; the fields of the others always come from the fallback.
+     *
+     * @param depth             the number of ready fields kept for every
+     *                          pooled difficulty.
+     * @param refillDelayMillis the delay between generating two fields for
+     *                          the same difficulty.
+     * @param difficulties      the difficulties generated in advance.
+     * @param factory           creates a new field of a difficulty in the
+     *                          background.
+     * @param fallback          creates a new field of a difficulty on the
+     *                          calling thread, when none is ready. It usually
+     *                          runs on the FX thread, so it should take no
+     *                          longer than a short pause.
+     */
+    public FieldPool(int depth, long refillDelayMillis, Set<Difficulty> difficulties,
+                     Function<Difficulty, Field> factory, Function<Difficulty, Field> fallback) {
+
+        this.factory = factory;
+        this.fallback = fallback;
+        this.fields = new EnumMap<>(Difficulty.class);
+        this.refilling = new EnumMap<>(Difficulty.class);
+        this.refillDelayMillis = refillDelayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "poosweeper-field-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Difficulty difficulty : difficulties) {
+            this.fields.put(difficulty, new ArrayBlockingQueue<>(Math.max(1, depth)));
+            this.refilling.put(difficulty, new AtomicBoolean());
+            this.scheduleRefill(difficulty, 0);
+        }
+    }
+
+    /**
+     * Takes a ready field of the given difficulty. If none is ready, a new
+     * field is created by the fallback on the calling thread.
+     *
+     * @param difficulty the difficulty of the field.
+     * @return the new field instance, or {@code null} if the fallback failed.
+     */
+    public Field take(Difficulty difficulty) {
+
+        BlockingQueue<Field> queue = this.fields.get(difficulty);
+        if (queue == null) {
+            return this.fallback.apply(difficulty);
+        }
+
+        Field field = queue.poll();
+        this.scheduleRefill(difficulty, this.refillDelayMillis);
+
+        return field != null ? field : this.fallback.apply(difficulty);
+    }
+
+    /**
+     * Cancels the background generation and drops all ready fields. Fields
+     * can still be taken afterwards, but they always come from the fallback.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        for (BlockingQueue<Field> queue : this.fields.values()) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Schedules generating fields for the given difficulty, unless that is
+     * already scheduled or the pool is shut down.
+     *
+     * @param difficulty  the difficulty of the fields.
+     * @param delayMillis the delay before generating the first field.
+     */
+    private void scheduleRefill(Difficulty difficulty, long delayMillis) {
+
+        if (this.executor.isShutdown() || !this.refilling.get(difficulty).compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.executor.schedule(() -> this.refill(difficulty), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            this.refilling.get(difficulty).set(false);
+        }
+    }
+
+    /**
+     * Generates a single field for the given difficulty and schedules the
+     * next one while the queue is not full.
+     *
+     * @param difficulty the difficulty of the field.
+     */
+    private void refill(Difficulty difficulty) {
+
+        BlockingQueue<Field> queue = this.fields.get(difficulty);
+
+        if (queue.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+            Field field = this.factory.apply(difficulty);
+            if (field != null) {
+                queue.offer(field);
+            }
+        }
+
+        this.refilling.get(difficulty).set(false);
+
+        if (queue.remainingCapacity() > 0) {
+            this.scheduleRefill(difficulty, this.refillDelayMillis);
+        }
+    }
+}
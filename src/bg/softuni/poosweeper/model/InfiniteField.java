@@ -0,0 +1,451 @@
+package bg.softuni.poosweeper.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The model of the endless game mode. Unlike {@link Field}, the board has no
+ * size: it is divided into {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE} chunks,
+ * which are generated only when a cell inside them is first accessed.
+ * <p>
+ * The poos of a chunk are drawn by a random generator seeded from a hash of
+ * the global seed and the chunk coordinates, so a chunk is always generated
+ * the same way. The hints of the border cells are computed from the poos of
+ * the neighbouring chunks, which are regenerated for that purpose.
+ * <p>
+ * At most {@code maxLoadedChunks} chunks are kept in a least recently used
+ * map. An evicted chunk, which the player has never touched, is simply
+ * dropped and regenerated on demand. A touched chunk keeps only its opened
+ * and flagged cells packed in bit planes. At most {@code maxPackedChunks}
+ * of those are kept, and beyond that the chunk evicted longest ago is
+ * forgotten and comes back closed, so the memory stays bounded however far
+ * the player travels.
+ * <p>
+ * Cells are addressed by signed {@code int} coordinates. Regions returned by
+ * {@link #open(int, int)} contain cells packed by {@link #pack(int, int)}.
+ */
+public class InfiniteField {
+
+    public static final int CHUNK_SIZE = 32;
+
+    private static final CellValue[] VALUES = CellValue.values();
+
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int VALUE_MASK = 0x0F;
+    private static final int POO_BIT = 0x10;
+    private static final int OPEN_BIT = 0x20;
+    private static final int FLAG_BIT = 0x40;
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+    private static final int MAX_REGION_SIZE = 1 << 16;
+
+    private final double pooDensity;
+    private final long seed;
+    private final int maxLoadedChunks;
+    private final int maxPackedChunks;
+
+    private final Map<Long, Chunk> chunks;
+    private final Map<Long, long[]> packedChunks;
+    private long lastKey;
+    private Chunk lastChunk;
+
+    private long[] queue = new long[INITIAL_QUEUE_CAPACITY];
+
+    /**
+     * Creates an endless board.
+     *
+     * @param pooDensity      the probability of every cell being a poo.
+     * @param seed            the seed from which all chunks are generated.
+     * @param maxLoadedChunks the number of chunks kept fully in memory.
+     * @param maxPackedChunks the number of evicted chunks, whose opened and
+     *                        flagged cells are kept.
+     */
+    public InfiniteField(double pooDensity, long seed, int maxLoadedChunks, int maxPackedChunks) {
+
+        if (pooDensity < 0 || pooDensity > 1 || maxLoadedChunks < 1 || maxPackedChunks < 0) {
+            throw new IllegalArgumentException("Invalid poo density or chunk budget.");
+        }
+
+        this.pooDensity = pooDensity;
+        this.seed = seed;
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.maxPackedChunks = maxPackedChunks;
+        this.packedChunks = new LinkedHashMap<Long, long[]>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return this.size() > InfiniteField.this.maxPackedChunks;
+            }
+        };
+        this.chunks = new LinkedHashMap<Long, Chunk>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (this.size() <= InfiniteField.this.maxLoadedChunks) {
+                    return false;
+                }
+                InfiniteField.this.evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Packs the coordinates of a cell in a single value.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the packed coordinates.
+     */
+    public static long pack(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the row of packed coordinates.
+     *
+     * @param cell the packed coordinates.
+     * @return the row of the cell.
+     */
+    public static int rowOf(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    /**
+     * Returns the column of packed coordinates.
+     *
+     * @param cell the packed coordinates.
+     * @return the column of the cell.
+     */
+    public static int columnOf(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * Checks if the given cell is a poo.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return {@code true} if the cell is a poo; otherwise, {@code false}.
+     */
+    public boolean isPoo(int row, int column) {
+        return (this.cellAt(row, column) & POO_BIT) != 0;
+    }
+
+    /**
+     * Checks if the given cell is opened.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return {@code true} if the cell is opened; otherwise, {@code false}.
+     */
+    public boolean isOpen(int row, int column) {
+        return (this.cellAt(row, column) & OPEN_BIT) != 0;
+    }
+
+    /**
+     * Checks if the given cell is flagged.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return {@code true} if the cell is flagged; otherwise, {@code false}.
+     */
+    public boolean isFlagged(int row, int column) {
+        return (this.cellAt(row, column) & FLAG_BIT) != 0;
+    }
+
+    /**
+     * Returns the value of the given cell.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the hint value of the cell.
+     */
+    public CellValue getCellValue(int row, int column) {
+        return VALUES[this.cellAt(row, column) & VALUE_MASK];
+    }
+
+    /**
+     * Toggles the flag of a closed cell.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return {@code true} if the cell is flagged now; otherwise, {@code false}.
+     */
+    public boolean toggleFlag(int row, int column) {
+
+        Chunk chunk = this.chunkAt(row, column);
+        int index = localIndex(row, column);
+
+        if ((chunk.cells[index] & OPEN_BIT) != 0) {
+            return false;
+        }
+
+        chunk.cells[index] ^= FLAG_BIT;
+        chunk.touched = true;
+        return (chunk.cells[index] & FLAG_BIT) != 0;
+    }
+
+    /**
+     * Opens the region that opens when the given cell is clicked. The flood
+     * fill crosses chunk borders freely, skips flagged cells and stops
+     * expanding after {@value #MAX_REGION_SIZE} cells, leaving the rest of a
+     * very large region to further clicks.
+     *
+     * @param row    the row of the clicked cell.
+     * @param column the column of the clicked cell.
+     * @return the packed coordinates of the newly opened cells, starting
+     * with the clicked cell.
+     */
+    public long[] open(int row, int column) {
+
+        if (this.isPoo(row, column)) {
+            throw new IllegalStateException("Cannot open a poo.");
+        }
+
+        int size = 0;
+        if (this.markOpen(row, column)) {
+            this.queue[size++] = pack(row, column);
+        }
+
+        for (int head = 0; head < size; head++) {
+
+            long cell = this.queue[head];
+            int cellRow = rowOf(cell);
+            int cellColumn = columnOf(cell);
+
+            if ((this.cellAt(cellRow, cellColumn) & VALUE_MASK) != 0) {
+                continue;
+            }
+
+            for (int nearRow = cellRow - 1; nearRow <= cellRow + 1; nearRow++) {
+                for (int nearColumn = cellColumn - 1; nearColumn <= cellColumn + 1; nearColumn++) {
+                    if (size < MAX_REGION_SIZE && this.markOpen(nearRow, nearColumn)) {
+                        if (size == this.queue.length) {
+                            this.queue = Arrays.copyOf(this.queue, size * 2);
+                        }
+                        this.queue[size++] = pack(nearRow, nearColumn);
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(this.queue, size);
+    }
+
+    /**
+     * Returns the number of chunks currently kept fully in memory.
+     *
+     * @return the number of loaded chunks.
+     */
+    public int getLoadedChunkCount() {
+        return this.chunks.size();
+    }
+
+    /**
+     * Returns the number of evicted chunks whose player state is retained.
+     *
+     * @return the number of packed chunks.
+     */
+    public int getPackedChunkCount() {
+        return this.packedChunks.size();
+    }
+
+    /**
+     * Opens a closed, not flagged cell.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return {@code true} if the cell was opened; otherwise, {@code false}.
+     */
+    private boolean markOpen(int row, int column) {
+
+        Chunk chunk = this.chunkAt(row, column);
+        int index = localIndex(row, column);
+
+        if ((chunk.cells[index] & (OPEN_BIT | FLAG_BIT)) != 0) {
+            return false;
+        }
+
+        chunk.cells[index] |= OPEN_BIT;
+        chunk.touched = true;
+        return true;
+    }
+
+    /**
+     * Returns the packed state of a cell.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the cell byte.
+     */
+    private int cellAt(int row, int column) {
+        return this.chunkAt(row, column).cells[localIndex(row, column)];
+    }
+
+    /**
+     * Returns the chunk containing a cell, generating it if needed. The last
+     * used chunk is cached, because consecutive accesses are usually near.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the chunk.
+     */
+    private Chunk chunkAt(int row, int column) {
+
+        int chunkRow = row >> CHUNK_SHIFT;
+        int chunkColumn = column >> CHUNK_SHIFT;
+        long key = pack(chunkRow, chunkColumn);
+
+        if (this.lastChunk != null && this.lastKey == key) {
+            return this.lastChunk;
+        }
+
+        Chunk chunk = this.chunks.get(key);
+        if (chunk == null) {
+            chunk = this.generateChunk(chunkRow, chunkColumn);
+            this.chunks.put(key, chunk);
+        }
+
+        this.lastKey = key;
+        this.lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Generates a chunk with its hints and restores the player state, if the
+     * chunk was touched before being evicted.
+     *
+     * @param chunkRow    the row of the chunk.
+     * @param chunkColumn the column of the chunk.
+     * @return the generated chunk.
+     */
+    private Chunk generateChunk(int chunkRow, int chunkColumn) {
+
+        long[] padded = new long[CHUNK_SIZE + 2];
+
+        for (int nearRow = -1; nearRow <= 1; nearRow++) {
+            for (int nearColumn = -1; nearColumn <= 1; nearColumn++) {
+
+                int[] poos = this.generatePoos(chunkRow + nearRow, chunkColumn + nearColumn);
+
+                for (int row = 0; row < CHUNK_SIZE; row++) {
+                    int paddedRow = row + 1 + nearRow * CHUNK_SIZE;
+                    if (paddedRow < 0 || paddedRow >= padded.length) {
+                        continue;
+                    }
+                    long bits = poos[row] & 0xFFFFFFFFL;
+                    int shift = 1 + nearColumn * CHUNK_SIZE;
+                    padded[paddedRow] |= shift >= 0 ? bits << shift : bits >>> -shift;
+                }
+            }
+        }
+
+        Chunk chunk = new Chunk();
+
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            for (int column = 0; column < CHUNK_SIZE; column++) {
+                int cell = 0;
+                for (int nearRow = row; nearRow <= row + 2; nearRow++) {
+                    cell += Long.bitCount((padded[nearRow] >>> column) & 0b111);
+                }
+                if ((padded[row + 1] >>> (column + 1) & 1) != 0) {
+                    cell = POO_BIT;
+                }
+                chunk.cells[row * CHUNK_SIZE + column] = (byte) cell;
+            }
+        }
+
+        long[] packed = this.packedChunks.remove(pack(chunkRow, chunkColumn));
+        if (packed != null) {
+            for (int row = 0; row < CHUNK_SIZE; row++) {
+                for (int column = 0; column < CHUNK_SIZE; column++) {
+                    int index = row * CHUNK_SIZE + column;
+                    chunk.cells[index] |= (packed[row] >>> column & 1) != 0 ? OPEN_BIT : 0;
+                    chunk.cells[index] |= (packed[row] >>> (column + CHUNK_SIZE) & 1) != 0 ? FLAG_BIT : 0;
+                }
+            }
+            chunk.touched = true;
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Draws the poos of a chunk from a generator seeded by a hash of the
+     * global seed and the chunk coordinates.
+     *
+     * @param chunkRow    the row of the chunk.
+     * @param chunkColumn the column of the chunk.
+     * @return a bit mask of the poos in every row of the chunk.
+     */
+    private int[] generatePoos(int chunkRow, int chunkColumn) {
+
+        long hash = this.seed;
+        hash = hash * 0x9E3779B97F4A7C15L + chunkRow;
+        hash = hash * 0x9E3779B97F4A7C15L + chunkColumn;
+        SplittableRandom random = new SplittableRandom(hash);
+
+        int[] poos = new int[CHUNK_SIZE];
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            for (int column = 0; column < CHUNK_SIZE; column++) {
+                if (random.nextDouble() < this.pooDensity) {
+                    poos[row] |= 1 << column;
+                }
+            }
+        }
+
+        return poos;
+    }
+
+    /**
+     * Called when a chunk leaves the loaded chunks. A touched chunk keeps its
+     * opened and flagged cells in two bit planes, one {@code long} per row,
+     * which may push the oldest packed chunk out of {@link #packedChunks}.
+     *
+     * @param key   the packed coordinates of the chunk.
+     * @param chunk the evicted chunk.
+     */
+    private void evict(long key, Chunk chunk) {
+
+        if (chunk == this.lastChunk) {
+            this.lastChunk = null;
+        }
+
+        if (!chunk.touched) {
+            return;
+        }
+
+        long[] packed = new long[CHUNK_SIZE];
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            for (int column = 0; column < CHUNK_SIZE; column++) {
+                int cell = chunk.cells[row * CHUNK_SIZE + column];
+                packed[row] |= (cell & OPEN_BIT) != 0 ? 1L << column : 0;
+                packed[row] |= (cell & FLAG_BIT) != 0 ? 1L << (column + CHUNK_SIZE) : 0;
+            }
+        }
+
+        this.packedChunks.put(key, packed);
+    }
+
+    /**
+     * Returns the index of a cell inside its chunk.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the local index.
+     */
+    private static int localIndex(int row, int column) {
+        return (row & CHUNK_MASK) << CHUNK_SHIFT | (column & CHUNK_MASK);
+    }
+
+    /**
+     * A generated chunk, whose cells are packed the same way as in
+     * {@link Field}.
+     */
+    private static class Chunk {
+
+        private final byte[] cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        private boolean touched;
+    }
+}
@@ -0,0 +1,10 @@
+package bg.softuni.poosweeper.model;
+
+/**
+ * An enumeration of the player actions recorded in a replay.
+ */
+public enum ReplayAction {
+    Open,
+    Flag,
+    Chord
+}
@@ -0,0 +1,242 @@
+package bg.softuni.poosweeper.model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a replay file written by {@link ReplayRecorder}. The field is built
+ * when the reader is opened, and the actions are then streamed one by one
+ * through a small buffer, so replays of any length use constant memory.
+ * A file which ends in the middle of an action, for example because the
+ * game was not closed properly, ends with the last complete action.
+ */
+public class ReplayReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final ReplayAction[] ACTIONS = ReplayAction.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Field field;
+
+    private ReplayAction action;
+    private int index;
+    private long timeNanos;
+
+    /**
+     * Opens a replay file and builds the field of the recorded game.
+     *
+     * @param path the path of the replay file.
+     * @throws IOException if the file cannot be read or is not a valid replay.
+     */
+    public ReplayReader(Path path) throws IOException {
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip();
+
+        try {
+            this.field = this.readField(path);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A getter for the {@link #field} field.
+     *
+     * @return the field of the recorded game, before any action.
+     */
+    public Field getField() {
+        return this.field;
+    }
+
+    /**
+     * Reads the next action.
+     *
+     * @return {@code true} if there is a next action; otherwise, {@code false}.
+     * @throws IOException if the file cannot be read.
+     */
+    public boolean next() throws IOException {
+
+        long first = this.readVarint();
+        long second = first < 0 ? -1 : this.readVarint();
+
+        if (second < 0) {
+            return false;
+        }
+
+        int actionOrdinal = (int) (first & ((1 << ReplayRecorder.ACTION_BITS) - 1));
+        int zigzag = (int) (first >>> ReplayRecorder.ACTION_BITS);
+
+        if (actionOrdinal >= ACTIONS.length) {
+            throw new IOException("Invalid replay action " + actionOrdinal + ".");
+        }
+
+        this.action = ACTIONS[actionOrdinal];
+        this.index += (zigzag >>> 1) ^ -(zigzag & 1);
+        this.timeNanos += second;
+
+        if (this.index < 0 || this.index >= this.field.getRows() * this.field.getColumns()) {
+            throw new IOException("Invalid replay cell " + this.index + ".");
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the current action.
+     *
+     * @return the action read by the last {@link #next()}.
+     */
+    public ReplayAction getAction() {
+        return this.action;
+    }
+
+    /**
+     * Returns the row of the current action.
+     *
+     * @return the row of the cell.
+     */
+    public int getRow() {
+        return this.index / this.field.getColumns();
+    }
+
+    /**
+     * Returns the column of the current action.
+     *
+     * @return the column of the cell.
+     */
+    public int getColumn() {
+        return this.index % this.field.getColumns();
+    }
+
+    /**
+     * Returns the time of the current action.
+     *
+     * @return the nanoseconds since the start of the game.
+     */
+    public long getTimeNanos() {
+        return this.timeNanos;
+    }
+
+    /**
+     * Closes the replay file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Reads the header and the poo plane and builds the field.
+     *
+     * @param path the path of the file, for error messages.
+     * @return the field.
+     * @throws IOException if the file is not a valid replay.
+     */
+    private Field readField(Path path) throws IOException {
+
+        this.require(ReplayRecorder.HEADER_SIZE);
+
+        if (this.buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("Not a replay: " + path);
+        }
+
+        short version = this.buffer.getShort();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported replay version " + version + ": " + path);
+        }
+
+        this.buffer.getShort();
+        int rows = this.buffer.getInt();
+        int columns = this.buffer.getInt();
+        int pooCount = this.buffer.getInt();
+        this.buffer.position(this.buffer.position() + 12);
+
+        long totalCount = (long) rows * columns;
+        if (rows <= 0 || columns <= 0 || totalCount > Integer.MAX_VALUE || pooCount < 0 || pooCount > totalCount) {
+            throw new IOException("Invalid replay size: " + path);
+        }
+
+        byte[] cells = new byte[(int) totalCount];
+        int placedCount = 0;
+
+        for (int first = 0; first < cells.length; first += Long.SIZE) {
+            this.require(Long.BYTES);
+            long poos = this.buffer.getLong();
+            placedCount += Long.bitCount(poos);
+            for (int index = first; index < Math.min(cells.length, first + Long.SIZE); index++) {
+                cells[index] = (byte) ((poos >>> index & 1) != 0 ? Field.POO_BIT : 0);
+            }
+        }
+
+        if (placedCount != pooCount) {
+            throw new IOException("Invalid replay poo count: " + path);
+        }
+
+        return new Field(rows, columns, pooCount, cells, 0, 0);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @return the value or -1 at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private long readVarint() throws IOException {
+
+        long value = 0;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+
+            if (!this.buffer.hasRemaining() && !this.fill()) {
+                return -1;
+            }
+
+            byte next = this.buffer.get();
+            value |= (long) (next & 0x7F) << shift;
+
+            if (next >= 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Invalid replay varint.");
+    }
+
+    /**
+     * Makes sure that the buffer has at least the given number of bytes.
+     *
+     * @param size the number of bytes.
+     * @throws IOException if the file ends before.
+     */
+    private void require(int size) throws IOException {
+        while (this.buffer.remaining() < size) {
+            if (!this.fill()) {
+                throw new EOFException("Unexpected end of replay.");
+            }
+        }
+    }
+
+    /**
+     * Reads more of the file into the buffer, keeping the unread bytes.
+     *
+     * @return {@code false} at the end of the file; otherwise, {@code true}.
+     * @throws IOException if the file cannot be read.
+     */
+    private boolean fill() throws IOException {
+        this.buffer.compact();
+        int read = this.channel.read(this.buffer);
+        this.buffer.flip();
+        return read > 0;
+    }
+}
@@ -0,0 +1,241 @@
+package bg.softuni.poosweeper.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Records the actions of a single game into a replay file.
+ * <p>
+ * The file starts with a 32 byte big-endian header: the magic number
+ * {@code "POOR"}, the format {@link #VERSION} (short), a reserved short, the
+ * rows, columns and poo count (ints) and 12 reserved bytes. The poo plane of
+ * the field follows as {@code long} words, in which bit {@code i} of word
+ * {@code w} is the cell with index {@code 64 * w + i}. Every action is then
+ * stored as two unsigned LEB128 varints: the zigzag encoded difference to
+ * the previous cell index shifted left by two bits and combined with the
+ * {@link ReplayAction} ordinal, and the nanoseconds since the previous
+ * action. A typical action takes three to five bytes.
+ * <p>
+ * {@link #record(ReplayAction, int, int)} only takes the time and hands the
+ * action to a single daemon writer thread shared by all recorders, so the
+ * caller never waits for the file. All encoding state and the file belong
+ * to the writer thread. A recording which fails to write is abandoned
+ * without affecting the game.
+ */
+public class ReplayRecorder {
+
+    public static final short VERSION = 1;
+
+    static final int MAGIC = 0x504F4F52;
+    static final int HEADER_SIZE = 32;
+    static final int ACTION_BITS = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_ACTION_SIZE = 2 * 10;
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "poosweeper-replay-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int columns;
+    private final long startNanos;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int lastIndex;
+    private long lastNanos;
+
+    /**
+     * Starts recording a new game. The poos of the field are captured on the
+     * calling thread, and the file is created by the writer thread.
+     *
+     * @param path  the path of the replay file, which is replaced.
+     * @param field the field of the game, before any action.
+     */
+    public ReplayRecorder(Path path, Field field) {
+
+        this.columns = field.getColumns();
+        this.startNanos = System.nanoTime();
+
+        byte[] cells = field.getCells();
+        long[] poos = new long[(cells.length + 63) >>> 6];
+        int pooCount = 0;
+
+        for (int index = 0; index < cells.length; index++) {
+            if ((cells[index] & Field.POO_BIT) != 0) {
+                poos[index >>> 6] |= 1L << index;
+                pooCount++;
+            }
+        }
+
+        int rows = field.getRows();
+        int total = pooCount;
+        writer.execute(() -> this.open(path, rows, total, poos));
+    }
+
+    /**
+     * Records an action. The action is written in the background.
+     *
+     * @param action the action.
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    public void record(ReplayAction action, int row, int column) {
+        long nanos = System.nanoTime() - this.startNanos;
+        int index = row * this.columns + column;
+        writer.execute(() -> this.write(action, index, nanos));
+    }
+
+    /**
+     * Finishes the recording in the background.
+     *
+     * @return a future, which completes when the file is closed.
+     */
+    public Future<?> close() {
+        return writer.submit(this::closeChannel);
+    }
+
+    /**
+     * Creates the file and writes the header and the poo plane. Called on
+     * the writer thread.
+     *
+     * @param path     the path of the file.
+     * @param rows     the number of rows.
+     * @param pooCount the number of poos.
+     * @param poos     the poo plane.
+     */
+    private void open(Path path, int rows, int pooCount, long[] poos) {
+
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            this.buffer.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putInt(rows)
+                    .putInt(this.columns)
+                    .putInt(pooCount)
+                    .putInt(0)
+                    .putLong(0);
+
+            for (long word : poos) {
+                this.ensureRemaining(Long.BYTES);
+                this.buffer.putLong(word);
+            }
+        } catch (IOException e) {
+            this.abandon();
+        }
+    }
+
+    /**
+     * Encodes an action into the buffer. Called on the writer thread.
+     *
+     * @param action the action.
+     * @param index  the index of the cell.
+     * @param nanos  the time since the start of the game.
+     */
+    private void write(ReplayAction action, int index, long nanos) {
+
+        if (this.channel == null) {
+            return;
+        }
+
+        try {
+            this.ensureRemaining(MAX_ACTION_SIZE);
+        } catch (IOException e) {
+            this.abandon();
+            return;
+        }
+
+        int delta = index - this.lastIndex;
+        long zigzag = (delta << 1) ^ (delta >> 31);
+        this.putVarint((zigzag & 0xFFFFFFFFL) << ACTION_BITS | action.ordinal());
+        this.putVarint(nanos - this.lastNanos);
+
+        this.lastIndex = index;
+        this.lastNanos = nanos;
+    }
+
+    /**
+     * Writes the rest of the buffer and closes the file. Called on the
+     * writer thread.
+     */
+    private void closeChannel() {
+
+        if (this.channel == null) {
+            return;
+        }
+
+        try {
+            this.flush();
+            this.channel.close();
+        } catch (IOException e) {
+            this.abandon();
+        }
+
+        this.channel = null;
+    }
+
+    /**
+     * Writes the buffer to the file if it has less than the given space left.
+     *
+     * @param size the needed space in bytes.
+     * @throws IOException if the file cannot be written.
+     */
+    private void ensureRemaining(int size) throws IOException {
+        if (this.buffer.remaining() < size) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Writes the buffer to the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Stops recording after a failure.
+     */
+    private void abandon() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // The recording is abandoned anyway.
+            }
+        }
+        this.channel = null;
+    }
+
+    /**
+     * Appends an unsigned LEB128 varint to the buffer.
+     *
+     * @param value the value.
+     */
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            this.buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+}
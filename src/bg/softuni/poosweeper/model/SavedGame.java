@@ -0,0 +1,409 @@
+package bg.softuni.poosweeper.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A game stored in a file: the whole {@link Field} and the elapsed time.
+ * <p>
+ * The file starts with a 32 byte big-endian header: the magic number
+ * {@code "POOS"}, the format {@link #VERSION} (short), a reserved short,
+ * the rows, columns and poo count (ints), a reserved int and the elapsed
+ * time in nanoseconds (long). Three bit planes follow, one for the poos,
+ * the opened and the flagged cells, each stored as {@code long} words in
+ * which bit {@code i} of word {@code w} is the cell with index
+ * {@code 64 * w + i}. The hints are not stored, but computed again.
+ * <p>
+ * The planes are written and read through a {@link FileChannel} in a
+ * single pass over the cells, with one direct buffer per plane, so no
+ * intermediate objects are built even for very large fields. The header is
+ * written last, once the poos have been counted from their plane. Full
+ * words are converted eight cells at a time. The file
+ * is written next to the target and then moved over it, so an interrupted
+ * save does not destroy the previous one.
+ */
+public class SavedGame {
+
+    public static final short VERSION = 1;
+
+    private static final int MAGIC = 0x504F4F53;
+    private static final int HEADER_SIZE = 32;
+    private static final int PLANE_BUFFER_SIZE = 1 << 18;
+    private static final int PLANES = 3;
+    private static final int POO_SHIFT = Integer.numberOfTrailingZeros(Field.POO_BIT);
+    private static final int OPEN_SHIFT = Integer.numberOfTrailingZeros(Field.OPEN_BIT);
+    private static final int FLAG_SHIFT = Integer.numberOfTrailingZeros(Field.FLAG_BIT);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long GATHER_MULTIPLIER = 0x0102040810204080L;
+    private static final long[] SPREAD = new long[256];
+
+    static {
+        for (int bits = 0; bits < SPREAD.length; bits++) {
+            for (int bit = 0; bit < Byte.SIZE; bit++) {
+                SPREAD[bits] |= (long) (bits >>> bit & 1) << (bit * Byte.SIZE);
+            }
+        }
+    }
+
+    private final Field field;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a saved game from a field and the time spent on it.
+     *
+     * @param field        the game field.
+     * @param elapsedNanos the elapsed time in nanoseconds.
+     */
+    public SavedGame(Field field, long elapsedNanos) {
+        this.field = field;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * A getter for the {@link #field} field.
+     *
+     * @return the game field.
+     */
+    public Field getField() {
+        return this.field;
+    }
+
+    /**
+     * A getter for the {@link #elapsedNanos} field.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Writes the game to a file, replacing the existing one. The game is
+     * written to a temporary file first, which is removed if saving fails.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            this.write(temporary);
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the game to a new file.
+     *
+     * @param path the path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private void write(Path path) throws IOException {
+
+        byte[] cells = this.field.getCells();
+        ByteBuffer view = ByteBuffer.wrap(cells).order(ByteOrder.LITTLE_ENDIAN);
+        int words = wordCount(cells.length);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer[] planes = allocatePlaneBuffers(words);
+            long[] positions = new long[planes.length];
+            int pooCount = 0;
+
+            for (int plane = 0; plane < planes.length; plane++) {
+                positions[plane] = HEADER_SIZE + (long) plane * words * Long.BYTES;
+            }
+
+            for (int word = 0; word < words; word++) {
+
+                int first = word << 6;
+                int last = Math.min(cells.length, first + 64);
+
+                long poos = 0;
+                long opened = 0;
+                long flags = 0;
+
+                if (last - first == Long.SIZE) {
+                    for (int bit = 0; bit < Long.SIZE; bit += Byte.SIZE) {
+                        long eight = view.getLong(first + bit);
+                        poos |= gather(eight >>> POO_SHIFT) << bit;
+                        opened |= gather(eight >>> OPEN_SHIFT) << bit;
+                        flags |= gather(eight >>> FLAG_SHIFT) << bit;
+                    }
+                } else {
+                    for (int index = first; index < last; index++) {
+                        long cell = cells[index];
+                        int bit = index - first;
+                        poos |= (cell >>> POO_SHIFT & 1) << bit;
+                        opened |= (cell >>> OPEN_SHIFT & 1) << bit;
+                        flags |= (cell >>> FLAG_SHIFT & 1) << bit;
+                    }
+                }
+
+                pooCount += Long.bitCount(poos);
+                putLong(channel, planes, positions, 0, poos);
+                putLong(channel, planes, positions, 1, opened);
+                putLong(channel, planes, positions, 2, flags);
+            }
+
+            for (int plane = 0; plane < planes.length; plane++) {
+                planes[plane].flip();
+                writeFully(channel, planes[plane], positions[plane]);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putInt(this.field.getRows())
+                    .putInt(this.field.getColumns())
+                    .putInt(pooCount)
+                    .putInt(0)
+                    .putLong(this.elapsedNanos)
+                    .flip();
+            writeFully(channel, header, 0);
+        }
+    }
+
+    /**
+     * Reads a game from a file.
+     *
+     * @param path the path of the file.
+     * @return the restored game.
+     * @throws IOException if the file cannot be read or is not a valid save.
+     */
+    public static SavedGame load(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a saved game: " + path);
+            }
+
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported saved game version " + version + ": " + path);
+            }
+
+            header.getShort();
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int pooCount = header.getInt();
+            header.getInt();
+            long elapsedNanos = header.getLong();
+
+            long totalCount = (long) rows * columns;
+            if (rows <= 0 || columns <= 0 || totalCount > Integer.MAX_VALUE || pooCount < 0 || pooCount > totalCount) {
+                throw new IOException("Invalid saved game size: " + path);
+            }
+
+            byte[] cells = new byte[(int) totalCount];
+            int words = wordCount(cells.length);
+
+            if (channel.size() != HEADER_SIZE + (long) PLANES * words * Long.BYTES) {
+                throw new IOException("Invalid saved game length: " + path);
+            }
+
+            ByteBuffer[] planes = allocatePlaneBuffers(words);
+            long[] positions = new long[planes.length];
+            long planeSize = (long) words * Long.BYTES;
+
+            for (int plane = 0; plane < planes.length; plane++) {
+                positions[plane] = HEADER_SIZE + plane * planeSize;
+                planes[plane].flip();
+            }
+
+            ByteBuffer view = ByteBuffer.wrap(cells).order(ByteOrder.LITTLE_ENDIAN);
+            long pooTotal = 0;
+            int openedTotal = 0;
+            int flagsTotal = 0;
+
+            for (int word = 0; word < words; word++) {
+
+                int first = word << 6;
+                int last = Math.min(cells.length, first + 64);
+
+                long poos = getLong(channel, planes, positions, 0, planeSize);
+                long opened = getLong(channel, planes, positions, 1, planeSize);
+                long flags = getLong(channel, planes, positions, 2, planeSize);
+
+                if (last - first == Long.SIZE) {
+                    for (int bit = 0; bit < Long.SIZE; bit += Byte.SIZE) {
+                        view.putLong(first + bit, SPREAD[(int) (poos >>> bit) & 0xFF] << POO_SHIFT
+                                | SPREAD[(int) (opened >>> bit) & 0xFF] << OPEN_SHIFT
+                                | SPREAD[(int) (flags >>> bit) & 0xFF] << FLAG_SHIFT);
+                    }
+                } else {
+                    for (int index = first; index < last; index++) {
+                        int bit = index - first;
+                        cells[index] = (byte) ((poos >>> bit & 1) << POO_SHIFT
+                                | (opened >>> bit & 1) << OPEN_SHIFT
+                                | (flags >>> bit & 1) << FLAG_SHIFT);
+                    }
+                }
+
+                pooTotal += Long.bitCount(poos);
+                openedTotal += Long.bitCount(opened);
+                flagsTotal += Long.bitCount(flags);
+            }
+
+            if (pooTotal != pooCount) {
+                throw new IOException("Invalid saved game poo count: " + path);
+            }
+
+            return new SavedGame(new Field(rows, columns, pooCount, cells, openedTotal, flagsTotal), elapsedNanos);
+        }
+    }
+
+    /**
+     * Collects the lowest bit of each of the eight bytes of a value.
+     *
+     * @param eight the eight bytes, the first one in the lowest byte.
+     * @return a byte whose bit {@code i} is the lowest bit of byte {@code i}.
+     */
+    private static long gather(long eight) {
+        return (eight & LOW_BITS) * GATHER_MULTIPLIER >>> 56;
+    }
+
+    /**
+     * Returns the number of {@code long} words of a plane.
+     *
+     * @param cellCount the number of cells.
+     * @return the number of words.
+     */
+    private static int wordCount(int cellCount) {
+        return (cellCount + 63) >>> 6;
+    }
+
+    /**
+     * Allocates a direct buffer for every plane, not larger than needed.
+     *
+     * @param words the number of words of a plane.
+     * @return the buffers.
+     */
+    private static ByteBuffer[] allocatePlaneBuffers(int words) {
+        int size = (int) Math.min(PLANE_BUFFER_SIZE, (long) words * Long.BYTES);
+        ByteBuffer[] buffers = new ByteBuffer[PLANES];
+        for (int plane = 0; plane < buffers.length; plane++) {
+            buffers[plane] = ByteBuffer.allocateDirect(size);
+        }
+        return buffers;
+    }
+
+    /**
+     * Appends a word to the buffer of a plane, writing the buffer to the
+     * file first when it is full.
+     *
+     * @param channel   the file channel.
+     * @param planes    the buffers of the planes.
+     * @param positions the file positions of the plane buffers.
+     * @param plane     the plane of the word.
+     * @param word      the word.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void putLong(FileChannel channel, ByteBuffer[] planes, long[] positions,
+                                int plane, long word) throws IOException {
+
+        ByteBuffer buffer = planes[plane];
+
+        if (!buffer.hasRemaining()) {
+            buffer.flip();
+            positions[plane] += writeFully(channel, buffer, positions[plane]);
+            buffer.clear();
+        }
+
+        buffer.putLong(word);
+    }
+
+    /**
+     * Takes the next word from the buffer of a plane, reading the buffer
+     * from the file first when it is empty.
+     *
+     * @param channel   the file channel.
+     * @param planes    the buffers of the planes.
+     * @param positions the file positions of the plane buffers.
+     * @param plane     the plane of the word.
+     * @param planeSize the size of a plane in bytes.
+     * @return the word.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long getLong(FileChannel channel, ByteBuffer[] planes, long[] positions,
+                                int plane, long planeSize) throws IOException {
+
+        ByteBuffer buffer = planes[plane];
+
+        if (!buffer.hasRemaining()) {
+            long planeEnd = HEADER_SIZE + (plane + 1) * planeSize;
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), planeEnd - positions[plane]));
+            positions[plane] += readFully(channel, buffer, positions[plane]);
+            buffer.flip();
+        }
+
+        return buffer.getLong();
+    }
+
+    /**
+     * Writes the whole buffer at the given position.
+     *
+     * @param channel  the file channel.
+     * @param buffer   the buffer to write.
+     * @param position the position in the file.
+     * @return the number of bytes written.
+     * @throws IOException if the file cannot be written.
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    /**
+     * Reads from the given position until the buffer is full.
+     *
+     * @param channel  the file channel.
+     * @param buffer   the buffer to fill.
+     * @param position the position in the file.
+     * @return the number of bytes read.
+     * @throws IOException if the file cannot be read or ends too early.
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of saved game.");
+            }
+            read += count;
+        }
+        return read;
+    }
+}
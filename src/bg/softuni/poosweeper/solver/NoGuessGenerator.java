@@ -0,0 +1,180 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Generates fields, which can be solved by logic alone starting with the
+ * cell in the middle of the field.
+ * <p>
+ * Every worker thread draws candidate seeds, builds the candidate field with
+ * a safe square around the start cell and plays it with
+ * {@link Solver#solveWithoutGuessing(int, int)}. The first seed which passes
+ * completes a shared future, which makes all other workers stop. Because a
+ * field is fully determined by its seed, the winning field is built once
+ * more, unplayed, for the player. If no candidate passes within the time
+ * limit, or a worker fails, no field is returned, so the caller can retry
+ * or tell the player that the field is not guaranteed.
+ * <p>
+ * The Insane preset is so dense, that the search practically never finds a
+ * candidate within the time limit, so it is not
+ * {@linkplain #getSupportedDifficulties() supported} and its fields are
+ * created by {@link #generateSafeStart(Difficulty)}.
+ */
+public class NoGuessGenerator {
+
+    private static final Set<Difficulty> SUPPORTED_DIFFICULTIES =
+            Collections.unmodifiableSet(EnumSet.of(Difficulty.Easy, Difficulty.Medium, Difficulty.Hard));
+
+    private final ExecutorService executor;
+    private final int workers;
+    private final long timeoutMillis;
+    private final SplittableRandom random = new SplittableRandom();
+
+    /**
+     * Creates a generator with its own worker threads.
+     *
+     * @param workers       the number of candidates verified in parallel.
+     * @param timeoutMillis the time limit of a single generation.
+     */
+    public NoGuessGenerator(int workers, long timeoutMillis) {
+        this.workers = workers;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "poosweeper-no-guess");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the row of the cell every generated field starts with.
+     *
+     * @param field the field.
+     * @return the row of the start cell.
+     */
+    public static int getStartRow(Field field) {
+        return field.getRows() / 2;
+    }
+
+    /**
+     * Returns the column of the cell every generated field starts with.
+     *
+     * @param field the field.
+     * @return the column of the start cell.
+     */
+    public static int getStartColumn(Field field) {
+        return field.getColumns() / 2;
+    }
+
+    /**
+     * Returns the presets, for which a field is usually found well within
+     * the time limit.
+     *
+     * @return the supported difficulties.
+     */
+    public static Set<Difficulty> getSupportedDifficulties() {
+        return SUPPORTED_DIFFICULTIES;
+    }
+
+    /**
+     * Creates a field of the given difficulty with only a safe start,
+     * without searching. Used for the presets, which are not supported, and
+     * when the search fails.
+     *
+     * @param difficulty the difficulty of the field.
+     * @return the new field, which is not opened yet.
+     */
+    public Field generateSafeStart(Difficulty difficulty) {
+
+        int rows = difficulty.getRows();
+        int columns = difficulty.getColumns();
+
+        return new Field(rows, columns, difficulty.getPooCount(), this.split().nextLong(), rows / 2, columns / 2);
+    }
+
+    /**
+     * Generates a field of the given difficulty.
+     *
+     * @param difficulty the difficulty of the field.
+     * @return the new field, which is not opened yet, or {@code null} if no
+     * field was found within the time limit.
+     */
+    public Field generate(Difficulty difficulty) {
+        return this.generate(difficulty.getRows(), difficulty.getColumns(), difficulty.getPooCount());
+    }
+
+    /**
+     * Generates a field with the given size and number of poos.
+     *
+     * @param rows     the number of rows.
+     * @param columns  the number of columns.
+     * @param pooCount the number of poos.
+     * @return the new field, which is not opened yet, or {@code null} if no
+     * field was found within the time limit.
+     */
+    public Field generate(int rows, int columns, int pooCount) {
+
+        int startRow = rows / 2;
+        int startColumn = columns / 2;
+        CompletableFuture<Long> found = new CompletableFuture<>();
+
+        for (int i = 0; i < this.workers; i++) {
+            SplittableRandom workerRandom = this.split();
+            this.executor.execute(() -> {
+                try {
+                    while (!found.isDone()) {
+                        long seed = workerRandom.nextLong();
+                        Field candidate = new Field(rows, columns, pooCount, seed, startRow, startColumn);
+                        if (new Solver(candidate, workerRandom).solveWithoutGuessing(startRow, startColumn)) {
+                            found.complete(seed);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    found.completeExceptionally(e);
+                }
+            });
+        }
+
+        long seed;
+        try {
+            seed = found.get(this.timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            found.cancel(false);
+        }
+
+        return new Field(rows, columns, pooCount, seed, startRow, startColumn);
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Splits a new generator for a worker, as the shared one is not thread-safe.
+     *
+     * @return the new generator.
+     */
+    private synchronized SplittableRandom split() {
+        return this.random.split();
+    }
+}
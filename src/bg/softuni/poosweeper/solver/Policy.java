@@ -0,0 +1,76 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Field;
+
+import java.util.SplittableRandom;
+
+/**
+ * An enumeration of the ways a simulated game can be played.
+ */
+public enum Policy {
+
+    /**
+     * Plays with the {@link Solver}, which deduces safe cells and guesses
+     * only when it is stuck.
+     */
+    Deduction {
+        @Override
+        public boolean play(Field field, SplittableRandom random, SimulationResult result) {
+            Solver solver = new Solver(field, random);
+            solver.setRegionListener(result::addRegion);
+            boolean won = solver.solve();
+            result.addGame(won, solver.getOpenedCount());
+            return won;
+        }
+    },
+
+    /**
+     * Opens random closed cells until the game is won or lost.
+     */
+    RandomClicks {
+        @Override
+        public boolean play(Field field, SplittableRandom random, SimulationResult result) {
+
+            int columns = field.getColumns();
+            int cellCount = field.getRows() * columns;
+            int opened = 0;
+
+            while (!field.isSolved()) {
+
+                int index = random.nextInt(cellCount);
+                int row = index / columns;
+                int column = index % columns;
+
+                if (field.isOpen(row, column)) {
+                    continue;
+                }
+
+                if (field.isPoo(row, column)) {
+                    result.addGame(false, opened);
+                    return false;
+                }
+
+                int[] region = field.getAdjacentIndices(row, column);
+                for (int cell : region) {
+                    field.openCell(cell / columns, cell % columns);
+                }
+
+                opened += region.length;
+                result.addRegion(region.length);
+            }
+
+            result.addGame(true, opened);
+            return true;
+        }
+    };
+
+    /**
+     * Plays a single new game to the end and records it in the result.
+     *
+     * @param field  the field to play.
+     * @param random the generator of the worker playing the game.
+     * @param result the statistics of the worker.
+     * @return {@code true} if the game is won; otherwise, {@code false}.
+     */
+    public abstract boolean play(Field field, SplittableRandom random, SimulationResult result);
+}
@@ -0,0 +1,156 @@
+package bg.softuni.poosweeper.solver;
+
+import java.util.Locale;
+
+/**
+ * Aggregated statistics of simulated games. Every simulation worker fills
+ * its own instance, and the instances are merged when the workers finish,
+ * so no synchronization is needed while playing.
+ * <p>
+ * The flood fill sizes are counted in a histogram with power-of-two
+ * buckets: bucket {@code b} counts the open actions, which opened between
+ * {@code 2^b} and {@code 2^(b+1) - 1} cells.
+ */
+public class SimulationResult {
+
+    private static final int BUCKETS = 32;
+
+    private final long[] regionHistogram = new long[BUCKETS];
+    private long games;
+    private long won;
+    private long openedCells;
+    private long nanos;
+
+    /**
+     * Records a finished game.
+     *
+     * @param won         whether the game is won.
+     * @param openedCells the number of cells opened in the game.
+     */
+    public void addGame(boolean won, int openedCells) {
+        this.games++;
+        this.won += won ? 1 : 0;
+        this.openedCells += openedCells;
+    }
+
+    /**
+     * Records the size of a region opened by a single action.
+     *
+     * @param size the number of opened cells.
+     */
+    public void addRegion(int size) {
+        if (size > 0) {
+            this.regionHistogram[31 - Integer.numberOfLeadingZeros(size)]++;
+        }
+    }
+
+    /**
+     * Adds the statistics of another result to this one.
+     *
+     * @param other the other result.
+     * @return this result.
+     */
+    public SimulationResult merge(SimulationResult other) {
+        this.games += other.games;
+        this.won += other.won;
+        this.openedCells += other.openedCells;
+        for (int i = 0; i < BUCKETS; i++) {
+            this.regionHistogram[i] += other.regionHistogram[i];
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of played games.
+     *
+     * @return the number of games.
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns the number of won games.
+     *
+     * @return the number of won games.
+     */
+    public long getWon() {
+        return this.won;
+    }
+
+    /**
+     * Returns the ratio of won games to all games.
+     *
+     * @return the win rate between 0 and 1.
+     */
+    public double getWinRate() {
+        return this.games == 0 ? 0 : (double) this.won / this.games;
+    }
+
+    /**
+     * Returns the average number of cells opened in a game.
+     *
+     * @return the average number of opened cells.
+     */
+    public double getAverageOpenedCells() {
+        return this.games == 0 ? 0 : (double) this.openedCells / this.games;
+    }
+
+    /**
+     * Returns a copy of the flood fill size histogram.
+     *
+     * @return the number of open actions in every power-of-two bucket.
+     */
+    public long[] getRegionHistogram() {
+        return this.regionHistogram.clone();
+    }
+
+    /**
+     * Returns the wall-clock time of the simulation.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * Sets the wall-clock time of the simulation.
+     *
+     * @param nanos the time in nanoseconds.
+     */
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the number of games played per second of wall-clock time.
+     *
+     * @return the throughput of the simulation.
+     */
+    public double getGamesPerSecond() {
+        return this.nanos == 0 ? 0 : this.games * 1e9 / this.nanos;
+    }
+
+    /**
+     * Formats the statistics as a short multi-line report.
+     *
+     * @return the report.
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "games: %d, win rate: %.2f%%, avg opened cells: %.1f, games/s: %.0f%nflood sizes:",
+                this.games, 100 * this.getWinRate(), this.getAverageOpenedCells(), this.getGamesPerSecond()));
+
+        for (int i = 0; i < BUCKETS; i++) {
+            if (this.regionHistogram[i] > 0) {
+                report.append(String.format(Locale.ROOT, " %d-%d: %d",
+                        1L << i, (1L << (i + 1)) - 1, this.regionHistogram[i]));
+            }
+        }
+
+        return report.toString();
+    }
+}
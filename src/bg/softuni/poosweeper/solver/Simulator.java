@@ -0,0 +1,145 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A batch mode, which generates and plays many games headlessly on all
+ * cores and reports their statistics for every {@link Difficulty}.
+ * <p>
+ * The games are split between the workers of a fork/join pool. Every leaf
+ * task plays its games with its own {@link SplittableRandom}, seeded from
+ * the simulation seed and the position of the task, and fills its own
+ * {@link SimulationResult}, so the fields, the solvers and the statistics
+ * are all confined to a single thread and a simulation with the same seed
+ * always produces the same result.
+ * <p>
+ * Usage: {@code Simulator [games] [policy] [threads] [seed]}, where the
+ * policy is one of the {@link Policy} members.
+ */
+public class Simulator {
+
+    private static final int GAMES_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+    private final Policy policy;
+    private final long seed;
+
+    /**
+     * Creates a simulator.
+     *
+     * @param threads the number of worker threads.
+     * @param policy  the way the games are played.
+     * @param seed    the seed of all generated fields and guesses.
+     */
+    public Simulator(int threads, Policy policy, long seed) {
+        this.pool = new ForkJoinPool(threads);
+        this.policy = policy;
+        this.seed = seed;
+    }
+
+    /**
+     * Simulation entry method.
+     *
+     * @param args the optional number of games per difficulty, policy,
+     *             number of threads and seed.
+     */
+    public static void main(String[] args) {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Policy policy = args.length > 1 ? Policy.valueOf(args[1]) : Policy.Deduction;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        Simulator simulator = new Simulator(threads, policy, seed);
+
+        System.out.printf("%d games per difficulty, policy %s, %d threads, seed %d%n",
+                games, policy, threads, seed);
+
+        for (Difficulty difficulty : Difficulty.values()) {
+            System.out.println(difficulty + " " + simulator.simulate(difficulty, games));
+        }
+
+        simulator.shutdown();
+    }
+
+    /**
+     * Plays the given number of games and waits for the result.
+     *
+     * @param difficulty the difficulty of all games.
+     * @param games      the number of games.
+     * @return the aggregated statistics.
+     */
+    public SimulationResult simulate(Difficulty difficulty, int games) {
+        long start = System.nanoTime();
+        SimulationResult result = this.pool.invoke(new SimulationTask(difficulty, 0, games));
+        result.setNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * A task, which plays a range of games, splitting it in halves until
+     * the range is small enough to be played by a single worker.
+     */
+    private class SimulationTask extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Difficulty difficulty;
+        private final int first;
+        private final int count;
+
+        /**
+         * Creates a task for a range of games.
+         *
+         * @param difficulty the difficulty of the games.
+         * @param first      the number of the first game in the range.
+         * @param count      the number of games in the range.
+         */
+        SimulationTask(Difficulty difficulty, int first, int count) {
+            this.difficulty = difficulty;
+            this.first = first;
+            this.count = count;
+        }
+
+        /**
+         * Plays the range of games or splits it between two subtasks.
+         *
+         * @return the statistics of the range.
+         */
+        @Override
+        protected SimulationResult compute() {
+
+            if (this.count > GAMES_PER_TASK) {
+                int half = this.count / 2;
+                SimulationTask left = new SimulationTask(this.difficulty, this.first, half);
+                left.fork();
+                SimulationTask right = new SimulationTask(this.difficulty, this.first + half, this.count - half);
+                return right.compute().merge(left.join());
+            }
+
+            SplittableRandom random = new SplittableRandom(Simulator.this.seed
+                    ^ ((long) this.difficulty.ordinal() << 32 | this.first));
+            SimulationResult result = new SimulationResult();
+
+            for (int i = 0; i < this.count; i++) {
+                Field field = new Field(this.difficulty.getRows(), this.difficulty.getColumns(),
+                        this.difficulty.getPooCount(), random.nextLong());
+                Simulator.this.policy.play(field, random, result);
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,1441 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.CellValue;
+import bg.softuni.poosweeper.model.Field;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * A headless player, which plays a {@link Field} using only the information
+ * a human player sees: the values of the opened cells, the flags and the
+ * number of remaining poos.
+ * <p>
+ * The solver starts in a corner, which has the fewest neighbours and so
+ * most often opens a whole region. It then applies the single-cell rules to
+ * every opened number: when all of its poos are flagged the rest of its
+ * neighbours are safe, and when its closed neighbours are exactly its
+ * missing poos they are all poos.
+ * <p>
+ * When the single-cell rules are stuck, the closed cells next to numbers
+ * (the frontier) are split into independent components. The cells of a
+ * component, which touch exactly the same numbers, are interchangeable, so
+ * only the number of poos among them is enumerated, and every placement is
+ * counted with the ways to choose its cells. The placements of all
+ * components and the closed cells away from the numbers are combined,
+ * weighted by the number of ways to place the remaining poos, into the
+ * exact probability of every closed cell being a poo. Cells, which are safe
+ * or poos in every placement, are opened or flagged; otherwise the solver
+ * guesses the cell with the lowest probability. A component with too many
+ * placements is not enumerated, and the guess falls back to an estimate by
+ * the most pessimistic number around each cell.
+ * <p>
+ * The solver keeps its own primitive copy of the visible board, a work
+ * stack of numbers, which need to be checked again, and reusable buffers
+ * for the enumeration. The neighbours of every cell are computed once per
+ * field size and shared, so a game allocates little besides the flood fill
+ * results of the field.
+ */
+public class Solver {
+
+    private static final byte UNKNOWN = -1;
+    private static final byte POO = 9;
+    private static final int ENUMERATION_BUDGET = 20_000;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte UNDECIDED = 0;
+    private static final byte SAFE = 1;
+    private static final byte CERTAIN_POO = 2;
+    private static final double[][] BINOMIALS = binomials(8);
+
+    private static volatile Neighbours sharedNeighbours;
+    private static volatile double[] logFactorials = {0};
+
+    private final Field field;
+    private final int columns;
+    private final SplittableRandom random;
+    private final int[] neighbourCells;
+    private final byte[] neighbourCounts;
+
+    private final byte[] known;
+    private final int[] stack;
+    private final boolean[] stacked;
+    private final int[] numbers;
+    private int stackSize;
+    private int numbersCount;
+
+    private int remainingPoos;
+    private int flagCount;
+    private int unknownCount;
+    private int guesses;
+    private boolean lost;
+    private IntConsumer regionListener;
+
+    private int[] positionStamps;
+    private int[] constraintIds;
+    private int[] numberStamps = new int[INITIAL_CAPACITY];
+    private int[] need = new int[INITIAL_CAPACITY];
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int[] frontier = new int[INITIAL_CAPACITY];
+    private int[] cellConstraints = new int[INITIAL_CAPACITY * 8];
+    private byte[] cellConstraintCounts = new byte[INITIAL_CAPACITY];
+    private int[] groupOf = new int[INITIAL_CAPACITY];
+    private int[] groupFirst = new int[INITIAL_CAPACITY];
+    private int[] groupSize = new int[INITIAL_CAPACITY];
+    private int[] groupPoos = new int[INITIAL_CAPACITY];
+    private int[] groupOffsets = new int[INITIAL_CAPACITY];
+    private byte[] groupVerdicts = new byte[INITIAL_CAPACITY];
+    private double[] groupProbabilities = new double[INITIAL_CAPACITY];
+    private int[] componentEnds = new int[16];
+    private int[] componentGroupEnds = new int[16];
+    private boolean[] componentExact = new boolean[16];
+    private int[] solutionOffsets = new int[16];
+    private int[] componentMin = new int[16];
+    private int[] componentMax = new int[16];
+    private double[] solutions = new double[INITIAL_CAPACITY];
+    private double[] groupSolutions = new double[INITIAL_CAPACITY * 4];
+    private boolean[] groupMayBePoo = new boolean[INITIAL_CAPACITY * 4];
+    private boolean[] groupMayBeSafe = new boolean[INITIAL_CAPACITY * 4];
+    private double[] prefix = new double[0];
+    private boolean[] prefixSupport = new boolean[0];
+    private double[] suffix = new double[0];
+    private boolean[] suffixSupport = new boolean[0];
+    private double[] rest = new double[0];
+    private boolean[] restSupport = new boolean[0];
+    private double[] weights = new double[0];
+    private double[] componentWeights = new double[0];
+    private boolean[] feasible = new boolean[0];
+    private int analysis;
+    private int frontierCount;
+    private int groupCount;
+    private int componentCount;
+    private int interiorCount;
+    private int nodes;
+    private int enumerationStart;
+    private int enumerationEnd;
+    private boolean exact;
+    private double interiorProbability;
+    private byte interiorVerdict;
+
+    /**
+     * Creates a solver for a field, which has not been played yet.
+     *
+     * @param field  the field to play.
+     * @param random the generator used for the first click and for guessing.
+     */
+    public Solver(Field field, SplittableRandom random) {
+
+        this.field = field;
+        this.columns = field.getColumns();
+        this.random = random;
+
+        Neighbours neighbours = Neighbours.of(field.getRows(), this.columns);
+        this.neighbourCells = neighbours.cells;
+        this.neighbourCounts = neighbours.counts;
+
+        int cellCount = field.getRows() * this.columns;
+        this.known = new byte[cellCount];
+        this.stack = new int[cellCount];
+        this.stacked = new boolean[cellCount];
+        this.numbers = new int[cellCount];
+
+        Arrays.fill(this.known, UNKNOWN);
+        this.remainingPoos = field.getPooCount();
+        this.unknownCount = cellCount;
+    }
+
+    /**
+     * Plays the field starting with a random corner.
+     *
+     * @return {@code true} if the game is won; otherwise, {@code false}.
+     */
+    public boolean solve() {
+        int row = this.random.nextBoolean() ? 0 : this.field.getRows() - 1;
+        int column = this.random.nextBoolean() ? 0 : this.columns - 1;
+        return this.solve(row, column);
+    }
+
+    /**
+     * Plays the field starting with the given cell until it is won or lost.
+     *
+     * @param row    the row of the first cell to open.
+     * @param column the column of the first cell to open.
+     * @return {@code true} if the game is won; otherwise, {@code false}.
+     */
+    public boolean solve(int row, int column) {
+        return this.play(row, column, true);
+    }
+
+    /**
+     * Plays the field starting with the given cell as long as logic alone
+     * allows progress. Used to verify that a field needs no guessing.
+     *
+     * @param row    the row of the first cell to open.
+     * @param column the column of the first cell to open.
+     * @return {@code true} if the game is won without any guess; otherwise,
+     * {@code false}.
+     */
+    public boolean solveWithoutGuessing(int row, int column) {
+        return this.play(row, column, false);
+    }
+
+    /**
+     * Sets a listener, which receives the number of cells opened by every
+     * single open action of the solver.
+     *
+     * @param regionListener the listener or {@code null} to remove it.
+     */
+    public void setRegionListener(IntConsumer regionListener) {
+        this.regionListener = regionListener;
+    }
+
+    /**
+     * Returns the number of guesses made while solving.
+     *
+     * @return the number of guesses, excluding the first click.
+     */
+    public int getGuesses() {
+        return this.guesses;
+    }
+
+    /**
+     * Returns the number of cells opened while solving.
+     *
+     * @return the number of opened cells.
+     */
+    public int getOpenedCount() {
+        return this.known.length - this.unknownCount - this.flagCount;
+    }
+
+    /**
+     * Plays the field from the given cell until it is won, lost or, when
+     * guessing is not allowed, no rule allows progress.
+     *
+     * @param row      the row of the first cell to open.
+     * @param column   the column of the first cell to open.
+     * @param guessing whether to guess when the rules are stuck.
+     * @return {@code true} if the game is won; otherwise, {@code false}.
+     */
+    private boolean play(int row, int column, boolean guessing) {
+
+        this.open(row * this.columns + column);
+
+        while (!this.lost && !this.field.isSolved()) {
+
+            if (this.applySingleCellRules()) {
+                continue;
+            }
+
+            if (this.remainingPoos == 0) {
+                this.openAllUnknown();
+            } else if (this.applyEnumeration()) {
+                continue;
+            } else if (guessing) {
+                this.guess();
+            } else {
+                return false;
+            }
+        }
+
+        return !this.lost;
+    }
+
+    /**
+     * Checks every number on the work stack with the single-cell rules.
+     *
+     * @return {@code true} if any cell was opened or flagged; otherwise, {@code false}.
+     */
+    private boolean applySingleCellRules() {
+
+        boolean progress = false;
+
+        while (this.stackSize > 0 && !this.lost) {
+            int index = this.stack[--this.stackSize];
+            this.stacked[index] = false;
+            progress |= this.applySingleCellRule(index);
+        }
+
+        return progress;
+    }
+
+    /**
+     * Applies the single-cell rules to one opened number.
+     *
+     * @param index the index of the number.
+     * @return {@code true} if any cell was opened or flagged; otherwise, {@code false}.
+     */
+    private boolean applySingleCellRule(int index) {
+
+        int from = index * 8;
+        int to = from + this.neighbourCounts[index];
+        int flags = 0;
+        int unknown = 0;
+
+        for (int i = from; i < to; i++) {
+            byte state = this.known[this.neighbourCells[i]];
+            flags += state == POO ? 1 : 0;
+            unknown += state == UNKNOWN ? 1 : 0;
+        }
+
+        if (unknown == 0) {
+            return false;
+        }
+
+        int missing = this.known[index] - flags;
+
+        if (missing == 0) {
+            for (int i = from; i < to && !this.lost; i++) {
+                if (this.known[this.neighbourCells[i]] == UNKNOWN) {
+                    this.open(this.neighbourCells[i]);
+                }
+            }
+            return true;
+        }
+
+        if (missing == unknown) {
+            for (int i = from; i < to; i++) {
+                if (this.known[this.neighbourCells[i]] == UNKNOWN) {
+                    this.flag(this.neighbourCells[i]);
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Enumerates the placements of the poos on the frontier and opens or
+     * flags every closed cell, which is proven safe or a poo by them.
+     *
+     * @return {@code true} if any cell was opened or flagged; otherwise, {@code false}.
+     */
+    private boolean applyEnumeration() {
+
+        this.analyze();
+
+        boolean progress = false;
+
+        for (int p = 0; p < this.frontierCount && !this.lost; p++) {
+            int cell = this.frontier[p];
+            byte verdict = this.groupVerdicts[this.groupOf[p]];
+            if (this.known[cell] != UNKNOWN) {
+                continue;
+            }
+            if (verdict == SAFE) {
+                this.open(cell);
+                progress = true;
+            } else if (verdict == CERTAIN_POO) {
+                this.flag(cell);
+                progress = true;
+            }
+        }
+
+        if (!progress && this.interiorVerdict != UNDECIDED) {
+            for (int index = 0; index < this.known.length && !this.lost; index++) {
+                if (this.known[index] == UNKNOWN && this.positionStamps[index] != this.analysis) {
+                    if (this.interiorVerdict == SAFE) {
+                        this.open(index);
+                    } else {
+                        this.flag(index);
+                    }
+                    progress = true;
+                }
+            }
+        }
+
+        return progress;
+    }
+
+    /**
+     * Opens the closed cell with the lowest probability of being a poo, as
+     * computed by the last {@link #analyze()}. Among the cells away from the
+     * numbers a corner or an edge is preferred, because it opens a region
+     * more often.
+     */
+    private void guess() {
+
+        this.guesses++;
+
+        double bestProbability = Double.MAX_VALUE;
+        int best = -1;
+        int ties = 0;
+
+        for (int p = 0; p < this.frontierCount; p++) {
+
+            double probability = this.exact
+                    ? this.groupProbabilities[this.groupOf[p]]
+                    : this.estimateProbability(this.frontier[p]);
+
+            if (probability < bestProbability) {
+                bestProbability = probability;
+                best = this.frontier[p];
+                ties = 1;
+            } else if (probability == bestProbability && this.random.nextInt(++ties) == 0) {
+                best = this.frontier[p];
+            }
+        }
+
+        double interior = this.exact ? this.interiorProbability : (double) this.remainingPoos / this.unknownCount;
+
+        if (best < 0 || interior < bestProbability) {
+            int cell = this.pickInteriorCell();
+            if (cell >= 0) {
+                best = cell;
+            }
+        }
+
+        this.open(best);
+    }
+
+    /**
+     * Estimates the probability of a closed cell next to numbers being a
+     * poo as the highest ratio of missing poos to closed neighbours among
+     * the numbers around it. Used when the frontier is too large to be
+     * enumerated.
+     *
+     * @param index the index of the closed cell.
+     * @return the estimated probability.
+     */
+    private double estimateProbability(int index) {
+
+        double probability = 0;
+        int to = index * 8 + this.neighbourCounts[index];
+
+        for (int i = index * 8; i < to; i++) {
+            int number = this.neighbourCells[i];
+            if (this.known[number] > 0 && this.known[number] != POO) {
+                int missing = this.known[number] - this.flaggedNeighbours(number);
+                probability = Math.max(probability, (double) missing / this.unknownNeighbours(number));
+            }
+        }
+
+        return probability;
+    }
+
+    /**
+     * Picks a random closed cell, which is not next to any opened cell,
+     * among the ones with the fewest neighbours.
+     *
+     * @return the index of the cell or -1 if there is none.
+     */
+    private int pickInteriorCell() {
+
+        int picked = -1;
+        int pickedNeighbours = Integer.MAX_VALUE;
+        int seen = 0;
+
+        for (int index = 0; index < this.known.length; index++) {
+
+            int neighbourCount = this.neighbourCounts[index];
+            if (this.known[index] != UNKNOWN || neighbourCount > pickedNeighbours || this.hasOpenNeighbour(index)) {
+                continue;
+            }
+
+            if (neighbourCount < pickedNeighbours) {
+                picked = index;
+                pickedNeighbours = neighbourCount;
+                seen = 1;
+            } else if (this.random.nextInt(++seen) == 0) {
+                picked = index;
+            }
+        }
+
+        return picked;
+    }
+
+    /**
+     * Computes the probability of every closed cell being a poo. The
+     * frontier is collected into {@link #frontier}, grouped by component
+     * and by the numbers its cells touch, and every component is
+     * enumerated. Unless a component alone proves some of its cells safe
+     * or poos, and if all of them could be enumerated, their placements
+     * are combined with the closed cells away from the numbers. The groups
+     * of cells proven safe or poos are marked in {@link #groupVerdicts} and
+     * the cells away from the numbers in {@link #interiorVerdict}.
+     */
+    private void analyze() {
+
+        this.ensureAnalysisBuffers();
+        this.updateNumbers();
+        this.interiorVerdict = UNDECIDED;
+
+        this.collectFrontier();
+        this.enumerateComponents();
+
+        if (!this.decideLocally() && this.exact) {
+            this.combine();
+        }
+    }
+
+    /**
+     * Removes the numbers without closed neighbours from {@link #numbers}
+     * and counts the missing poos and the closed neighbours of the rest.
+     */
+    private void updateNumbers() {
+
+        int kept = 0;
+
+        for (int n = 0; n < this.numbersCount; n++) {
+
+            int number = this.numbers[n];
+            int to = number * 8 + this.neighbourCounts[number];
+            int unknown = 0;
+            int flags = 0;
+
+            for (int i = number * 8; i < to; i++) {
+                byte state = this.known[this.neighbourCells[i]];
+                unknown += state == UNKNOWN ? 1 : 0;
+                flags += state == POO ? 1 : 0;
+            }
+
+            if (unknown > 0) {
+                this.numbers[kept] = number;
+                this.constraintIds[number] = kept;
+                this.free[kept] = unknown;
+                this.need[kept++] = this.known[number] - flags;
+            }
+        }
+
+        this.numbersCount = kept;
+    }
+
+    /**
+     * Collects the closed cells next to the numbers into components.
+     */
+    private void collectFrontier() {
+
+        this.analysis++;
+        this.frontierCount = 0;
+        this.groupCount = 0;
+        this.componentCount = 0;
+
+        for (int n = 0; n < this.numbersCount; n++) {
+
+            int number = this.numbers[n];
+            int to = number * 8 + this.neighbourCounts[number];
+            for (int i = number * 8; i < to; i++) {
+                int cell = this.neighbourCells[i];
+                if (this.known[cell] == UNKNOWN && this.positionStamps[cell] != this.analysis) {
+                    this.collectComponent(cell);
+                }
+            }
+        }
+
+        this.interiorCount = this.unknownCount - this.frontierCount;
+    }
+
+    /**
+     * Enumerates every collected component and finds the smallest and the
+     * largest number of poos it can have.
+     */
+    private void enumerateComponents() {
+
+        this.exact = true;
+        int solutionsLength = 0;
+        int groupSolutionsLength = 0;
+
+        for (int c = 0; c < this.componentCount; c++) {
+
+            int size = Math.min(this.componentSize(c), this.remainingPoos);
+            int firstGroup = this.componentFirstGroup(c);
+
+            this.solutionOffsets[c] = solutionsLength;
+            solutionsLength += size + 1;
+            this.solutions = ensureCapacity(this.solutions, solutionsLength);
+            Arrays.fill(this.solutions, this.solutionOffsets[c], solutionsLength, 0);
+
+            for (int g = firstGroup; g < this.componentGroupEnds[c]; g++) {
+                this.groupOffsets[g] = groupSolutionsLength;
+                groupSolutionsLength += size + 1;
+            }
+            this.groupSolutions = ensureCapacity(this.groupSolutions, groupSolutionsLength);
+            this.groupMayBePoo = ensureCapacity(this.groupMayBePoo, groupSolutionsLength);
+            this.groupMayBeSafe = ensureCapacity(this.groupMayBeSafe, groupSolutionsLength);
+            int firstOffset = this.groupOffsets[firstGroup];
+            Arrays.fill(this.groupSolutions, firstOffset, groupSolutionsLength, 0);
+            Arrays.fill(this.groupMayBePoo, firstOffset, groupSolutionsLength, false);
+            Arrays.fill(this.groupMayBeSafe, firstOffset, groupSolutionsLength, false);
+
+            this.nodes = 0;
+            this.enumerationStart = firstGroup;
+            this.enumerationEnd = this.componentGroupEnds[c];
+            this.componentExact[c] = this.enumerate(c, firstGroup, 0, 1);
+            this.exact &= this.componentExact[c];
+
+            int min = size;
+            int max = 0;
+            for (int k = 0; k <= size; k++) {
+                if (this.solutions[this.solutionOffsets[c] + k] > 0) {
+                    min = Math.min(min, k);
+                    max = k;
+                }
+            }
+            this.componentMin[c] = Math.min(min, max);
+            this.componentMax[c] = max;
+        }
+    }
+
+    /**
+     * Adds the closed cells connected to the given one through the numbers
+     * to {@link #frontier} as a new component, in breadth-first order, so
+     * that the enumeration decides the cells of a number close together.
+     * The cells are then sorted into groups by the numbers they touch.
+     *
+     * @param first the first cell of the component.
+     */
+    private void collectComponent(int first) {
+
+        int start = this.frontierCount;
+        int head = start;
+        this.visit(first);
+
+        while (head < this.frontierCount) {
+
+            int p = head++;
+            int cell = this.frontier[p];
+            int to = cell * 8 + this.neighbourCounts[cell];
+            int constraints = 0;
+
+            for (int i = cell * 8; i < to; i++) {
+
+                int number = this.neighbourCells[i];
+                if (this.known[number] <= 0 || this.known[number] == POO) {
+                    continue;
+                }
+
+                int id = this.constraintIds[number];
+                this.cellConstraints[p * 8 + constraints++] = id;
+
+                if (this.numberStamps[id] == this.analysis) {
+                    continue;
+                }
+
+                this.numberStamps[id] = this.analysis;
+                int numberTo = number * 8 + this.neighbourCounts[number];
+                for (int j = number * 8; j < numberTo; j++) {
+                    int near = this.neighbourCells[j];
+                    if (this.known[near] == UNKNOWN && this.positionStamps[near] != this.analysis) {
+                        this.visit(near);
+                    }
+                }
+            }
+
+            this.cellConstraintCounts[p] = (byte) constraints;
+        }
+
+        int firstGroup = this.groupCount;
+
+        for (int p = start; p < this.frontierCount; p++) {
+
+            int group = firstGroup;
+            while (group < this.groupCount && !this.sameConstraints(this.groupFirst[group], p)) {
+                group++;
+            }
+
+            if (group == this.groupCount) {
+                this.groupFirst[group] = p;
+                this.groupSize[group] = 0;
+                this.groupCount++;
+            }
+
+            this.groupOf[p] = group;
+            this.groupSize[group]++;
+        }
+
+        if (this.componentCount == this.componentEnds.length) {
+            this.componentEnds = Arrays.copyOf(this.componentEnds, this.componentCount * 2);
+            this.componentGroupEnds = Arrays.copyOf(this.componentGroupEnds, this.componentCount * 2);
+            this.componentExact = Arrays.copyOf(this.componentExact, this.componentCount * 2);
+            this.solutionOffsets = Arrays.copyOf(this.solutionOffsets, this.componentCount * 2);
+            this.componentMin = Arrays.copyOf(this.componentMin, this.componentCount * 2);
+            this.componentMax = Arrays.copyOf(this.componentMax, this.componentCount * 2);
+        }
+        this.componentEnds[this.componentCount] = this.frontierCount;
+        this.componentGroupEnds[this.componentCount++] = this.groupCount;
+    }
+
+    /**
+     * Appends a closed cell to {@link #frontier}.
+     *
+     * @param cell the index of the cell.
+     */
+    private void visit(int cell) {
+
+        if (this.frontierCount == this.frontier.length) {
+            this.growFrontier();
+        }
+
+        this.positionStamps[cell] = this.analysis;
+        this.frontier[this.frontierCount++] = cell;
+    }
+
+    /**
+     * Checks if two frontier cells touch the same numbers. The numbers of a
+     * cell are listed in the order of its neighbours, so equal sets are
+     * equal lists.
+     *
+     * @param first  the position of the first cell.
+     * @param second the position of the second cell.
+     * @return {@code true} if the numbers are the same; otherwise, {@code false}.
+     */
+    private boolean sameConstraints(int first, int second) {
+
+        int count = this.cellConstraintCounts[first];
+        if (count != this.cellConstraintCounts[second]) {
+            return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (this.cellConstraints[first * 8 + i] != this.cellConstraints[second * 8 + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Enumerates the numbers of poos in the groups of a component from the
+     * given group on, counting every complete placement by its number of
+     * poos in {@link #solutions} and, for every group, the poos it holds in
+     * {@link #groupSolutions}. A group can hold at most as many poos as each
+     * of its numbers misses, and at least as many as the other undecided
+     * cells of a number cannot hold.
+     *
+     * @param component the component, whose groups are between
+     *                  {@link #enumerationStart} and {@link #enumerationEnd}.
+     * @param group     the group to decide.
+     * @param poos      the number of poos placed so far.
+     * @param ways      the number of ways to choose the cells of the poos
+     *                  placed so far.
+     * @return {@code false} if the enumeration exceeded its budget;
+     * otherwise, {@code true}.
+     */
+    private boolean enumerate(int component, int group, int poos, double ways) {
+
+        if (++this.nodes > ENUMERATION_BUDGET) {
+            return false;
+        }
+
+        if (group == this.enumerationEnd) {
+            this.record(component, poos, ways);
+            return true;
+        }
+
+        int position = this.groupFirst[group];
+        int base = position * 8;
+        int count = this.cellConstraintCounts[position];
+        int size = this.groupSize[group];
+        int min = 0;
+        int max = Math.min(size, this.remainingPoos - poos);
+
+        for (int i = 0; i < count; i++) {
+            int id = this.cellConstraints[base + i];
+            max = Math.min(max, this.need[id]);
+            min = Math.max(min, this.need[id] - this.free[id] + size);
+            this.free[id] -= size;
+        }
+
+        boolean completed = true;
+
+        for (int groupPoos = min; groupPoos <= max && completed; groupPoos++) {
+            for (int i = 0; i < count; i++) {
+                this.need[this.cellConstraints[base + i]] -= groupPoos;
+            }
+            this.groupPoos[group] = groupPoos;
+            completed = this.enumerate(component, group + 1, poos + groupPoos, ways * BINOMIALS[size][groupPoos]);
+            for (int i = 0; i < count; i++) {
+                this.need[this.cellConstraints[base + i]] += groupPoos;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            this.free[this.cellConstraints[base + i]] += size;
+        }
+
+        return completed;
+    }
+
+    /**
+     * Counts a complete placement of the poos of a component.
+     *
+     * @param component the component.
+     * @param poos      the number of poos of the placement.
+     * @param ways      the number of ways to choose the cells of the poos.
+     */
+    private void record(int component, int poos, double ways) {
+
+        this.solutions[this.solutionOffsets[component] + poos] += ways;
+
+        for (int g = this.enumerationStart; g < this.enumerationEnd; g++) {
+            int offset = this.groupOffsets[g] + poos;
+            int groupPoos = this.groupPoos[g];
+            this.groupSolutions[offset] += ways * groupPoos;
+            this.groupMayBePoo[offset] |= groupPoos > 0;
+            this.groupMayBeSafe[offset] |= groupPoos < this.groupSize[g];
+        }
+    }
+
+    /**
+     * Marks the groups, which are safe or poos in all placements of their
+     * component, without regard to the number of remaining poos. Such a
+     * group is also decided by all components together, so they only need
+     * to be combined when no group is decided here.
+     *
+     * @return {@code true} if any group was decided; otherwise, {@code false}.
+     */
+    private boolean decideLocally() {
+
+        boolean decided = false;
+
+        for (int c = 0; c < this.componentCount; c++) {
+
+            if (!this.componentExact[c]) {
+                Arrays.fill(this.groupVerdicts, this.componentFirstGroup(c), this.componentGroupEnds[c], UNDECIDED);
+                continue;
+            }
+
+            this.feasible = ensureCapacity(this.feasible, this.componentMax[c] + 1);
+            for (int k = this.componentMin[c]; k <= this.componentMax[c]; k++) {
+                this.feasible[k] = this.solutions[this.solutionOffsets[c] + k] > 0;
+            }
+            decided |= this.decideComponent(c);
+        }
+
+        return decided;
+    }
+
+    /**
+     * Combines the placements of all components with the closed cells away
+     * from the numbers. A total of {@code K} poos on the frontier leaves
+     * {@code C(interior, remaining - K)} ways for the rest, so every
+     * placement is weighted by that number. For each component the
+     * distribution of the other components is the convolution of the
+     * prefix and the suffix distributions, which gives the probabilities of
+     * its groups and the numbers of poos it can actually have. The
+     * distributions are only as long as the frontier can have poos, and
+     * every loop only covers the counts its operands can reach.
+     */
+    private void combine() {
+
+        int frontierMax = 0;
+        for (int c = 0; c < this.componentCount; c++) {
+            frontierMax += this.componentMax[c];
+        }
+
+        int length = Math.min(this.remainingPoos, frontierMax) + 1;
+        int rows = this.componentCount + 1;
+        this.prefix = ensureCapacity(this.prefix, rows * length);
+        this.prefixSupport = ensureCapacity(this.prefixSupport, rows * length);
+        this.suffix = ensureCapacity(this.suffix, rows * length);
+        this.suffixSupport = ensureCapacity(this.suffixSupport, rows * length);
+        this.rest = ensureCapacity(this.rest, length);
+        this.restSupport = ensureCapacity(this.restSupport, length);
+        this.weights = ensureCapacity(this.weights, length);
+        this.componentWeights = ensureCapacity(this.componentWeights, length);
+        this.feasible = ensureCapacity(this.feasible, length);
+
+        this.computeWeights(length);
+
+        clear(this.prefix, this.prefixSupport, 0, length);
+        this.prefix[0] = 1;
+        this.prefixSupport[0] = true;
+        int reach = 0;
+        for (int c = 0; c < this.componentCount; c++) {
+            this.convolve(this.prefix, this.prefixSupport, c * length, reach, c, (c + 1) * length, length);
+            reach += this.componentMax[c];
+        }
+
+        int last = this.componentCount * length;
+        clear(this.suffix, this.suffixSupport, last, length);
+        this.suffix[last] = 1;
+        this.suffixSupport[last] = true;
+        reach = 0;
+        for (int c = this.componentCount - 1; c >= 0; c--) {
+            this.convolve(this.suffix, this.suffixSupport, (c + 1) * length, reach, c, c * length, length);
+            reach += this.componentMax[c];
+        }
+
+        reach = 0;
+        for (int c = 0; c < this.componentCount; c++) {
+            this.combineComponent(c, length, reach, frontierMax - reach - this.componentMax[c]);
+            reach += this.componentMax[c];
+        }
+
+        this.combineInterior(length);
+    }
+
+    /**
+     * Computes the probabilities and the feasible poo counts of the groups
+     * of one component from the distribution of all other components.
+     *
+     * @param component the component.
+     * @param length    the length of the distributions.
+     * @param prefixMax the most poos the components before it can have.
+     * @param suffixMax the most poos the components after it can have.
+     */
+    private void combineComponent(int component, int length, int prefixMax, int suffixMax) {
+
+        clear(this.rest, this.restSupport, 0, length);
+        int prefixOffset = component * length;
+        int suffixOffset = (component + 1) * length;
+        prefixMax = Math.min(length - 1, prefixMax);
+        suffixMax = Math.min(length - 1, suffixMax);
+        int restMax = Math.min(length - 1, prefixMax + suffixMax);
+
+        for (int i = 0; i <= prefixMax; i++) {
+            if (!this.prefixSupport[prefixOffset + i]) {
+                continue;
+            }
+            for (int j = 0; j <= suffixMax && i + j < length; j++) {
+                if (this.suffixSupport[suffixOffset + j]) {
+                    this.rest[i + j] += this.prefix[prefixOffset + i] * this.suffix[suffixOffset + j];
+                    this.restSupport[i + j] = true;
+                }
+            }
+        }
+
+        int solutionOffset = this.solutionOffsets[component];
+        int min = this.componentMin[component];
+        int max = this.componentMax[component];
+        double total = 0;
+
+        for (int k = min; k <= max; k++) {
+
+            double weight = 0;
+            boolean possible = false;
+
+            for (int j = 0; j <= restMax && k + j < length; j++) {
+                if (this.restSupport[j] && this.isPossible(k + j)) {
+                    weight += this.rest[j] * this.weights[k + j];
+                    possible = true;
+                }
+            }
+
+            this.componentWeights[k] = weight;
+            this.feasible[k] = possible && this.solutions[solutionOffset + k] > 0;
+            total += this.solutions[solutionOffset + k] * weight;
+        }
+
+        for (int g = this.componentFirstGroup(component); g < this.componentGroupEnds[component]; g++) {
+            double poos = 0;
+            for (int k = min; k <= max; k++) {
+                poos += this.groupSolutions[this.groupOffsets[g] + k] * this.componentWeights[k];
+            }
+            this.groupProbabilities[g] = total > 0 ? poos / total / this.groupSize[g] : 0;
+        }
+
+        this.decideComponent(component);
+    }
+
+    /**
+     * Computes the probability of the closed cells away from the numbers
+     * from the distribution of all components and decides them when the
+     * remaining poos are all on the frontier or all away from it.
+     *
+     * @param length the length of the distributions.
+     */
+    private void combineInterior(int length) {
+
+        int offset = this.componentCount * length;
+        double total = 0;
+        double poos = 0;
+        boolean allSafe = true;
+        boolean allPoos = true;
+
+        for (int k = 0; k < length; k++) {
+            if (this.prefixSupport[offset + k] && this.isPossible(k)) {
+                double weight = this.prefix[offset + k] * this.weights[k];
+                int interiorPoos = this.remainingPoos - k;
+                total += weight;
+                poos += weight * interiorPoos;
+                allSafe &= interiorPoos == 0;
+                allPoos &= interiorPoos == this.interiorCount;
+            }
+        }
+
+        this.interiorProbability = this.interiorCount > 0 && total > 0
+                ? poos / total / this.interiorCount
+                : Double.MAX_VALUE;
+
+        if (this.interiorCount > 0) {
+            this.interiorVerdict = allSafe ? SAFE : allPoos ? CERTAIN_POO : UNDECIDED;
+        }
+    }
+
+    /**
+     * Marks the groups of a component, which are safe or poos in all of its
+     * placements with a {@link #feasible} number of poos.
+     *
+     * @param component the component.
+     * @return {@code true} if any group was decided; otherwise, {@code false}.
+     */
+    private boolean decideComponent(int component) {
+
+        int min = this.componentMin[component];
+        int max = this.componentMax[component];
+        boolean any = false;
+        boolean decided = false;
+
+        for (int k = min; k <= max; k++) {
+            any |= this.feasible[k];
+        }
+
+        for (int g = this.componentFirstGroup(component); g < this.componentGroupEnds[component]; g++) {
+
+            boolean safe = any;
+            boolean poo = any;
+
+            for (int k = min; k <= max; k++) {
+                if (this.feasible[k]) {
+                    safe &= !this.groupMayBePoo[this.groupOffsets[g] + k];
+                    poo &= !this.groupMayBeSafe[this.groupOffsets[g] + k];
+                }
+            }
+
+            this.groupVerdicts[g] = safe ? SAFE : poo ? CERTAIN_POO : UNDECIDED;
+            decided |= safe || poo;
+        }
+
+        return decided;
+    }
+
+    /**
+     * Convolves a distribution with the poo counts of a component and
+     * scales the result, so that its largest value is 1.
+     *
+     * @param values    the array of the distributions.
+     * @param support   marks the counts, which are possible at all.
+     * @param from      the offset of the source distribution.
+     * @param fromMax   the largest count of the source distribution.
+     * @param component the component.
+     * @param to        the offset of the result.
+     * @param length    the length of the distributions.
+     */
+    private void convolve(double[] values, boolean[] support, int from, int fromMax, int component, int to,
+                          int length) {
+
+        clear(values, support, to, length);
+        int solutionOffset = this.solutionOffsets[component];
+        double max = 0;
+
+        for (int i = 0; i <= fromMax && i < length; i++) {
+            if (!support[from + i]) {
+                continue;
+            }
+            for (int k = this.componentMin[component]; k <= this.componentMax[component] && i + k < length; k++) {
+                double count = this.solutions[solutionOffset + k];
+                if (count > 0) {
+                    values[to + i + k] += values[from + i] * count;
+                    support[to + i + k] = true;
+                    max = Math.max(max, values[to + i + k]);
+                }
+            }
+        }
+
+        if (max > 0) {
+            for (int i = 0; i < length; i++) {
+                values[to + i] /= max;
+            }
+        }
+    }
+
+    /**
+     * Computes {@code C(interior, remaining - k)} for every number {@code k}
+     * of poos on the frontier, scaled so that the largest one is 1.
+     *
+     * @param length the number of weights.
+     */
+    private void computeWeights(int length) {
+
+        double[] logs = logFactorials(this.interiorCount);
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int k = 0; k < length; k++) {
+            if (this.isPossible(k)) {
+                int interiorPoos = this.remainingPoos - k;
+                this.weights[k] = logs[this.interiorCount] - logs[interiorPoos]
+                        - logs[this.interiorCount - interiorPoos];
+                max = Math.max(max, this.weights[k]);
+            }
+        }
+
+        for (int k = 0; k < length; k++) {
+            this.weights[k] = this.isPossible(k) ? Math.exp(this.weights[k] - max) : 0;
+        }
+    }
+
+    /**
+     * Checks if the poos left for the closed cells away from the numbers fit
+     * there, when the frontier has the given number of poos.
+     *
+     * @param frontierPoos the number of poos on the frontier.
+     * @return {@code true} if it is possible; otherwise, {@code false}.
+     */
+    private boolean isPossible(int frontierPoos) {
+        int interiorPoos = this.remainingPoos - frontierPoos;
+        return interiorPoos >= 0 && interiorPoos <= this.interiorCount;
+    }
+
+    /**
+     * Returns the first position of a component, which is also the number
+     * of cells of all components before it.
+     *
+     * @param component the component.
+     * @return the first position.
+     */
+    private int componentStart(int component) {
+        return component == 0 ? 0 : this.componentEnds[component - 1];
+    }
+
+    /**
+     * Returns the number of cells of a component.
+     *
+     * @param component the component.
+     * @return the number of cells.
+     */
+    private int componentSize(int component) {
+        return this.componentEnds[component] - this.componentStart(component);
+    }
+
+    /**
+     * Returns the first group of a component.
+     *
+     * @param component the component.
+     * @return the first group.
+     */
+    private int componentFirstGroup(int component) {
+        return component == 0 ? 0 : this.componentGroupEnds[component - 1];
+    }
+
+    /**
+     * Allocates the buffers indexed by cell on the first analysis of the
+     * game and grows the ones indexed by number to the current numbers.
+     */
+    private void ensureAnalysisBuffers() {
+
+        if (this.positionStamps == null) {
+            this.positionStamps = new int[this.known.length];
+            this.constraintIds = new int[this.known.length];
+        }
+
+        if (this.need.length < this.numbersCount) {
+            int length = Math.max(this.numbersCount, this.need.length * 2);
+            this.numberStamps = Arrays.copyOf(this.numberStamps, length);
+            this.need = new int[length];
+            this.free = new int[length];
+        }
+    }
+
+    /**
+     * Doubles the buffers indexed by frontier position or group, which
+     * usually stay far smaller than the field.
+     */
+    private void growFrontier() {
+        int length = this.frontier.length * 2;
+        this.frontier = Arrays.copyOf(this.frontier, length);
+        this.cellConstraints = Arrays.copyOf(this.cellConstraints, length * 8);
+        this.cellConstraintCounts = Arrays.copyOf(this.cellConstraintCounts, length);
+        this.groupOf = Arrays.copyOf(this.groupOf, length);
+        this.groupFirst = Arrays.copyOf(this.groupFirst, length);
+        this.groupSize = Arrays.copyOf(this.groupSize, length);
+        this.groupPoos = Arrays.copyOf(this.groupPoos, length);
+        this.groupOffsets = Arrays.copyOf(this.groupOffsets, length);
+        this.groupVerdicts = Arrays.copyOf(this.groupVerdicts, length);
+        this.groupProbabilities = Arrays.copyOf(this.groupProbabilities, length);
+    }
+
+    /**
+     * Opens a cell and the region flooded from it, and queues the new
+     * numbers and the numbers around them for checking.
+     *
+     * @param index the index of the cell.
+     */
+    private void open(int index) {
+
+        int row = index / this.columns;
+        int column = index % this.columns;
+
+        if (this.field.isPoo(row, column)) {
+            this.lost = true;
+            return;
+        }
+
+        int regionSize = 0;
+
+        for (int opened : this.field.getAdjacentIndices(row, column)) {
+
+            if (this.known[opened] != UNKNOWN) {
+                continue;
+            }
+
+            regionSize++;
+
+            CellValue value = this.field.openCell(opened / this.columns, opened % this.columns);
+            this.known[opened] = (byte) value.ordinal();
+            this.unknownCount--;
+
+            if (value != CellValue.Empty) {
+                this.numbers[this.numbersCount++] = opened;
+            }
+
+            this.push(opened);
+            this.pushNeighbours(opened);
+        }
+
+        if (this.regionListener != null) {
+            this.regionListener.accept(regionSize);
+        }
+    }
+
+    /**
+     * Flags a cell, which is proven to be a poo, and queues the numbers
+     * around it for checking.
+     *
+     * @param index the index of the cell.
+     */
+    private void flag(int index) {
+        this.field.toggleFlag(index / this.columns, index % this.columns);
+        this.known[index] = POO;
+        this.remainingPoos--;
+        this.flagCount++;
+        this.unknownCount--;
+        this.pushNeighbours(index);
+    }
+
+    /**
+     * Opens all closed cells, once all poos are flagged.
+     */
+    private void openAllUnknown() {
+        for (int index = 0; index < this.known.length && !this.lost; index++) {
+            if (this.known[index] == UNKNOWN) {
+                this.open(index);
+            }
+        }
+    }
+
+    /**
+     * Queues an opened number for checking.
+     *
+     * @param index the index of the cell.
+     */
+    private void push(int index) {
+        if (this.known[index] > 0 && this.known[index] != POO && !this.stacked[index]) {
+            this.stacked[index] = true;
+            this.stack[this.stackSize++] = index;
+        }
+    }
+
+    /**
+     * Queues the opened numbers around a cell for checking.
+     *
+     * @param index the index of the cell.
+     */
+    private void pushNeighbours(int index) {
+        int to = index * 8 + this.neighbourCounts[index];
+        for (int i = index * 8; i < to; i++) {
+            this.push(this.neighbourCells[i]);
+        }
+    }
+
+    /**
+     * Checks if any neighbour of a cell is opened.
+     *
+     * @param index the index of the cell.
+     * @return {@code true} if there is an opened neighbour; otherwise, {@code false}.
+     */
+    private boolean hasOpenNeighbour(int index) {
+        int to = index * 8 + this.neighbourCounts[index];
+        for (int i = index * 8; i < to; i++) {
+            byte state = this.known[this.neighbourCells[i]];
+            if (state != UNKNOWN && state != POO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the closed neighbours of a cell.
+     *
+     * @param index the index of the cell.
+     * @return the number of closed neighbours.
+     */
+    private int unknownNeighbours(int index) {
+        int to = index * 8 + this.neighbourCounts[index];
+        int unknown = 0;
+        for (int i = index * 8; i < to; i++) {
+            unknown += this.known[this.neighbourCells[i]] == UNKNOWN ? 1 : 0;
+        }
+        return unknown;
+    }
+
+    /**
+     * Counts the flagged neighbours of a cell.
+     *
+     * @param index the index of the cell.
+     * @return the number of flagged neighbours.
+     */
+    private int flaggedNeighbours(int index) {
+        int to = index * 8 + this.neighbourCounts[index];
+        int flags = 0;
+        for (int i = index * 8; i < to; i++) {
+            flags += this.known[this.neighbourCells[i]] == POO ? 1 : 0;
+        }
+        return flags;
+    }
+
+    /**
+     * Computes the binomial coefficients up to the given number.
+     *
+     * @param n the largest number.
+     * @return the coefficients, indexed by {@code n} and {@code k}.
+     */
+    private static double[][] binomials(int n) {
+
+        double[][] table = new double[n + 1][];
+
+        for (int i = 0; i <= n; i++) {
+            table[i] = new double[i + 1];
+            table[i][0] = 1;
+            table[i][i] = 1;
+            for (int k = 1; k < i; k++) {
+                table[i][k] = table[i - 1][k - 1] + table[i - 1][k];
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns the natural logarithms of the factorials up to the given
+     * number. The table is shared by all solvers and only grows.
+     *
+     * @param n the largest number.
+     * @return the table, indexed by the number.
+     */
+    private static double[] logFactorials(int n) {
+
+        double[] table = logFactorials;
+        if (table.length > n) {
+            return table;
+        }
+
+        synchronized (Solver.class) {
+            table = logFactorials;
+            if (table.length <= n) {
+                double[] grown = Arrays.copyOf(table, Math.max(n + 1, table.length * 2));
+                for (int i = table.length; i < grown.length; i++) {
+                    grown[i] = grown[i - 1] + Math.log(i);
+                }
+                logFactorials = grown;
+                table = grown;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns an array with at least the given length, keeping the values.
+     *
+     * @param array  the array.
+     * @param length the needed length.
+     * @return the array itself or a longer copy.
+     */
+    private static double[] ensureCapacity(double[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+    /**
+     * Returns an array with at least the given length, keeping the values.
+     *
+     * @param array  the array.
+     * @param length the needed length.
+     * @return the array itself or a longer copy.
+     */
+    private static boolean[] ensureCapacity(boolean[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+    /**
+     * Clears a distribution.
+     *
+     * @param values  the array of the distribution.
+     * @param support the support of the distribution.
+     * @param offset  the offset of the distribution.
+     * @param length  the length of the distribution.
+     */
+    private static void clear(double[] values, boolean[] support, int offset, int length) {
+        Arrays.fill(values, offset, offset + length, 0);
+        Arrays.fill(support, offset, offset + length, false);
+    }
+
+    /**
+     * The neighbours of every cell of a field size, eight slots per cell.
+     * The table of the last used size is shared, because a run of games
+     * usually plays a single size.
+     */
+    private static final class Neighbours {
+
+        private final int rows;
+        private final int columns;
+        private final int[] cells;
+        private final byte[] counts;
+
+        /**
+         * Computes the neighbours of every cell.
+         *
+         * @param rows    the number of rows.
+         * @param columns the number of columns.
+         */
+        private Neighbours(int rows, int columns) {
+
+            this.rows = rows;
+            this.columns = columns;
+            this.cells = new int[rows * columns * 8];
+            this.counts = new byte[rows * columns];
+
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+
+                    int index = row * columns + column;
+                    int count = 0;
+                    int firstColumn = Math.max(0, column - 1);
+                    int lastColumn = Math.min(columns - 1, column + 1);
+
+                    for (int nearRow = Math.max(0, row - 1); nearRow <= Math.min(rows - 1, row + 1); nearRow++) {
+                        for (int nearColumn = firstColumn; nearColumn <= lastColumn; nearColumn++) {
+                            int near = nearRow * columns + nearColumn;
+                            if (near != index) {
+                                this.cells[index * 8 + count++] = near;
+                            }
+                        }
+                    }
+
+                    this.counts[index] = (byte) count;
+                }
+            }
+        }
+
+        /**
+         * Returns the neighbours for a field size, reusing the shared table
+         * when it has the same size.
+         *
+         * @param rows    the number of rows.
+         * @param columns the number of columns.
+         * @return the neighbours.
+         */
+        private static Neighbours of(int rows, int columns) {
+
+            Neighbours neighbours = sharedNeighbours;
+
+            if (neighbours == null || neighbours.rows != rows || neighbours.columns != columns) {
+                neighbours = new Neighbours(rows, columns);
+                sharedNeighbours = neighbours;
+            }
+
+            return neighbours;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package bg.softuni.poosweeper.utils;
+
+import javafx.scene.image.Image;
+
+/**
+ * An enumeration of all images used by the game. The images are loaded from
+ * the {@code images} folder on the classpath, so they do not depend on the
+ * working directory. Every image is decoded only once and its {@link Image}
+ * instance is shared by all users.
+ */
+public enum ImageAsset {
+
+    Poo("poo.png"),
+    Leaf("leaf.png"),
+    IncorrectFlag("incorrectFlag.png"),
+    Icon("icon.png"),
+    WinningAnimation("giphy.gif");
+
+    private static final String IMAGES_FOLDER = "/images/";
+
+    private final String fileName;
+    private Image image;
+
+    /**
+     * Creates an enumeration member for the image with the given file name.
+     *
+     * @param fileName the file name in the {@code images} folder.
+     */
+    ImageAsset(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Starts decoding all images in the background.
+     */
+    public static void preload() {
+        for (ImageAsset asset : values()) {
+            asset.getImage();
+        }
+    }
+
+    /**
+     * Returns the shared image instance. The image is decoded in the
+     * background, so it may still be loading when this method returns.
+     *
+     * @return the image instance.
+     */
+    public synchronized Image getImage() {
+        if (this.image == null) {
+            this.image = new Image(this.getUrl(), true);
+        }
+        return this.image;
+    }
+
+    /**
+     * Returns the shared image instance after it has been fully decoded. If
+     * the background decoding has not finished yet, the image is decoded on
+     * the calling thread instead, and the result is shared from then on.
+     *
+     * @return the decoded image instance.
+     */
+    public synchronized Image getLoadedImage() {
+        Image current = this.getImage();
+        if (current.getProgress() < 1.0 || current.isError()) {
+            this.image = new Image(this.getUrl());
+        }
+        return this.image;
+    }
+
+    /**
+     * Returns the classpath URL of the image file.
+     *
+     * @return the URL as a string.
+     */
+    private String getUrl() {
+        return ImageAsset.class.getResource(IMAGES_FOLDER + this.fileName).toExternalForm();
+    }
+}
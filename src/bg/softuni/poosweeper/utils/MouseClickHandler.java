@@ -1,43 +1,37 @@
 package bg.softuni.poosweeper.utils;
 
 import bg.softuni.poosweeper.controller.MainController;
-import bg.softuni.poosweeper.model.Cell;
-import bg.softuni.poosweeper.model.CellValue;
+import bg.softuni.poosweeper.events.CellsRevealedEvent;
+import bg.softuni.poosweeper.events.FlagToggledEvent;
+import bg.softuni.poosweeper.events.GameEndedEvent;
+import bg.softuni.poosweeper.metrics.GameMetrics;
+import bg.softuni.poosweeper.model.Field;
+import bg.softuni.poosweeper.model.ReplayAction;
+import bg.softuni.poosweeper.view.BoardView;
 import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
-import javafx.scene.control.Labeled;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 
-import java.util.Optional;
-
 /**
- * The mouse click handler class for the game behavior.
+ * The mouse click handler class for the game behavior. A single instance is
+ * installed on the whole board node, and the clicked cell is found from the
+ * mouse position through {@link BoardView#getCellAt(double, double)}.
  */
 public class MouseClickHandler implements EventHandler<MouseEvent> {
 
-    private static final String CLICKED_STYLE_CLASS = "clicked";
-
-    private final int row;
-    private final int column;
     private final MainController controller;
 
     /**
-     * Creates an instance for the given row and column with a back-reference to
-     * the main controller instance.
+     * Creates an instance with a back-reference to the main controller instance.
      *
-     * @param row        the row of the button clicked.
-     * @param column     the column of the button clicked.
      * @param controller the controller instance.
      */
-    public MouseClickHandler(int row, int column, MainController controller) {
-        this.row = row;
-        this.column = column;
+    public MouseClickHandler(MainController controller) {
         this.controller = controller;
     }
 
@@ -49,99 +43,206 @@ public class MouseClickHandler implements EventHandler<MouseEvent> {
     @Override
     public void handle(MouseEvent event) {
 
-        if (this.isNotClickable()) {
+        if (this.controller.isReplaying()) {
             return;
         }
 
-        if (this.isValidLeftClick(event)) {
-            if (this.isNotPoo()) {
-                this.openCell();
+        long startNanos = System.nanoTime();
+        Field field = this.controller.getField();
+        int index = this.controller.getBoardView().getCellAt(event.getX(), event.getY());
+
+        if (index >= 0) {
+            this.click(index / field.getColumns(), index % field.getColumns(), this.getButton(event));
+            GameMetrics.clickHandled(startNanos);
+        }
+    }
+
+    /**
+     * Returns the button of a click. A click of one of the main buttons while
+     * the other one is held down is a chord, the same as a middle click.
+     *
+     * @param event the event informational object.
+     * @return the mouse button, {@link MouseButton#MIDDLE} for a chord.
+     */
+    private MouseButton getButton(MouseEvent event) {
+
+        boolean bothButtons = event.getButton() == MouseButton.PRIMARY && event.isSecondaryButtonDown()
+                || event.getButton() == MouseButton.SECONDARY && event.isPrimaryButtonDown();
+
+        return bothButtons ? MouseButton.MIDDLE : event.getButton();
+    }
+
+    /**
+     * Applies a click on a cell to the game, the same way as a click with
+     * the mouse. Used also to open the start cell of a new game and to play
+     * replays. Every action, which changes the game, is recorded. The
+     * {@link MouseButton#MIDDLE} button chords an opened number.
+     *
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
+     * @param button the mouse button.
+     */
+    public void click(int row, int column, MouseButton button) {
+
+        Field field = this.controller.getField();
+
+        if (button == MouseButton.MIDDLE) {
+            this.chord(field, row, column);
+        } else if (this.isNotClickable(field, row, column)) {
+            return;
+        } else if (this.isValidLeftClick(button, field, row, column)) {
+            this.controller.record(ReplayAction.Open, row, column);
+            if (field.isPoo(row, column)) {
+                this.loseGame(row, column);
             } else {
-                this.loseGame();
+                this.openCell(field, row, column);
             }
-        } else if (this.isValidRightClick(event)) {
-            this.toggleFlag();
+        } else if (this.isValidRightClick(button)) {
+            this.controller.record(ReplayAction.Flag, row, column);
+            this.toggleFlag(field, row, column);
         }
 
         this.controller.updatePooCountText();
 
-        if (this.controller.getField().isSolved()) {
+        if (!this.controller.isGameOver() && field.isSolved()) {
             this.winGame();
         }
     }
 
     /**
-     * Checks if the button is clickable.
+     * Opens all closed neighbours without a flag of a number, which has as
+     * many flags around it as its value. A wrongly placed flag loses the game.
+     * The opened regions may clear wrong flags, so the caller updates the
+     * poo count afterwards.
      *
-     * @return {@code true} if the button is clickable; otherwise, {@code false}.
+     * @param field  the game field.
+     * @param row    the row of the chorded cell.
+     * @param column the column of the chorded cell.
      */
-    private boolean isNotClickable() {
-        return this.controller.isGameOver() || this.controller.getField().isOpen(row, column);
+    private void chord(Field field, int row, int column) {
+
+        if (this.controller.isGameOver() || !field.canChord(row, column)) {
+            return;
+        }
+
+        this.controller.record(ReplayAction.Chord, row, column);
+
+        for (int index : field.getChordIndices(row, column)) {
+
+            int cellRow = index / field.getColumns();
+            int cellColumn = index % field.getColumns();
+
+            if (field.isOpen(cellRow, cellColumn)) {
+                continue;
+            }
+
+            if (field.isPoo(cellRow, cellColumn)) {
+                this.loseGame(cellRow, cellColumn);
+                return;
+            }
+
+            this.openCell(field, cellRow, cellColumn);
+        }
     }
 
     /**
-     * Checks if the left button is clicked and the button is not already flagged.
+     * Checks if the cell is clickable.
      *
-     * @param event the event informational object.
-     * @return {@code true} if the button state is valid; otherwise, {@code false}.
+     * @param field  the game field.
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
+     * @return {@code true} if the cell is not clickable; otherwise, {@code false}.
      */
-    private boolean isValidLeftClick(MouseEvent event) {
-        return event.getButton() == MouseButton.PRIMARY
-                && !this.controller.getField().isFlagged(row, column);
+    private boolean isNotClickable(Field field, int row, int column) {
+        return this.controller.isGameOver() || field.isOpen(row, column);
     }
 
     /**
-     * Returns if the button does not correspond to a poo field.
+     * Checks if the left button is clicked and the cell is not already flagged.
      *
-     * @return {@code true} if the button is not a poo; otherwise, {@code false}.
+     * @param button the mouse button.
+     * @param field  the game field.
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
+     * @return {@code true} if the cell state is valid; otherwise, {@code false}.
      */
-    private boolean isNotPoo() {
-        return !this.controller.getField().isPoo(row, column);
+    private boolean isValidLeftClick(MouseButton button, Field field, int row, int column) {
+        return button == MouseButton.PRIMARY && !field.isFlagged(row, column);
     }
 
     /**
-     * Updates the button styling so that it appears as "open".
+     * Opens the region around the clicked cell. The board view shows the
+     * opened cells on the next pulse.
+     *
+     * @param field  the game field.
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
      */
-    private void openCell() {
-        for (Cell cell : this.controller.getField().getAdjacentCells(row, column)) {
-            Labeled cellButton = this.controller.getButton(cell.getRow(), cell.getColumn());
-            CellValue cellValue = this.controller.getField().openCell(cell);
-            cellButton.setText(cellValue.toString());
-            cellButton.getStyleClass().remove(CellValue.Flag.getStyleClass());
-            cellButton.getStyleClass().add(cellValue.getStyleClass());
-            cellButton.getStyleClass().add(CLICKED_STYLE_CLASS);
+    private void openCell(Field field, int row, int column) {
+
+        CellsRevealedEvent event = new CellsRevealedEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        int[] indices = field.getAdjacentIndices(row, column);
+
+        for (int index : indices) {
+            field.openCell(index / field.getColumns(), index % field.getColumns());
+        }
+
+        GameMetrics.regionOpened(indices.length, startNanos);
+        this.controller.requestRender();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.row = row;
+            event.column = column;
+            event.count = indices.length;
+            event.commit();
         }
     }
 
     /**
      * Notifies the user that they have lost the game.
+     *
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
      */
-    private void loseGame() {
+    private void loseGame(int row, int column) {
         SoundHandler.playRandomFartClip();
-        this.controller.getButton(row, column).getStyleClass().add("clickedBoom");
+        this.controller.getBoardView().showBoom(row, column);
         this.controller.setGameOver();
         this.controller.showAllPoos();
+        this.emitGameEnded(false);
     }
 
     /**
      * Checks if the right button is clicked.
      *
-     * @param event the event informational object.
+     * @param button the mouse button.
      * @return {@code true} if the button state is valid; otherwise, {@code false}.
      */
-    private boolean isValidRightClick(MouseEvent event) {
-        return event.getButton() == MouseButton.SECONDARY;
+    private boolean isValidRightClick(MouseButton button) {
+        return button == MouseButton.SECONDARY;
     }
 
     /**
-     * Toggles the state of a flagged button.
+     * Toggles the state of a flagged cell.
+     *
+     * @param field  the game field.
+     * @param row    the row of the cell clicked.
+     * @param column the column of the cell clicked.
      */
-    private void toggleFlag() {
-        Labeled cellButton = this.controller.getButton(row, column);
-        if (this.controller.getField().toggleFlag(row, column)) {
-            cellButton.getStyleClass().add(CellValue.Flag.getStyleClass());
-        } else {
-            cellButton.getStyleClass().remove(CellValue.Flag.getStyleClass());
+    private void toggleFlag(Field field, int row, int column) {
+
+        boolean flagged = field.toggleFlag(row, column);
+        this.controller.requestRender();
+
+        FlagToggledEvent event = new FlagToggledEvent();
+        if (event.shouldCommit()) {
+            event.row = row;
+            event.column = column;
+            event.flagged = flagged;
+            event.commit();
         }
     }
 
@@ -151,11 +252,33 @@ public class MouseClickHandler implements EventHandler<MouseEvent> {
     private void winGame() {
         SoundHandler.playWinningClip();
         this.controller.setGameOver();
+        this.emitGameEnded(true);
         this.showWinGameAlert();
     }
 
     /**
-     * Displays an alert box with a "winner" message.
+     * Emits the JFR event of an ended game, if it is recorded.
+     *
+     * @param won {@code true} if the game is won; otherwise, {@code false}.
+     */
+    private void emitGameEnded(boolean won) {
+
+        GameEndedEvent event = new GameEndedEvent();
+
+        if (event.shouldCommit()) {
+            Field field = this.controller.getField();
+            event.won = won;
+            event.rows = field.getRows();
+            event.columns = field.getColumns();
+            event.pooCount = field.getTotalPooCount();
+            event.elapsedTime = this.controller.getElapsedNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Displays an alert box with a "winner" message. The alert does not
+     * block, because a game can also be won during a replay pulse.
      */
     private void showWinGameAlert() {
 
@@ -164,16 +287,17 @@ public class MouseClickHandler implements EventHandler<MouseEvent> {
         alert.setTitle("You won!");
         alert.setHeaderText("All the toilet cells are clean!");
         alert.getDialogPane().setContent(
-                new ImageView(
-                        new Image("file:resources/images/giphy.gif")));
+                new ImageView(ImageAsset.WinningAnimation.getImage()));
 
         ButtonType buttonContinue = new ButtonType("Continue", ButtonBar.ButtonData.CANCEL_CLOSE);
         ButtonType buttonQuit = new ButtonType("Quit", ButtonBar.ButtonData.RIGHT);
         alert.getButtonTypes().setAll(buttonContinue, buttonQuit);
 
-        Optional<ButtonType> result = alert.showAndWait();
-        if (result.get() == buttonQuit) {
-            Platform.exit();
-        }
+        alert.setOnHidden(event -> {
+            if (alert.getResult() == buttonQuit) {
+                Platform.exit();
+            }
+        });
+        alert.show();
     }
 }
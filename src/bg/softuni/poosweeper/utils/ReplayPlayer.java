@@ -0,0 +1,162 @@
+package bg.softuni.poosweeper.utils;
+
+import bg.softuni.poosweeper.metrics.GameMetrics;
+import bg.softuni.poosweeper.model.ReplayAction;
+import bg.softuni.poosweeper.model.ReplayReader;
+import javafx.animation.AnimationTimer;
+import javafx.scene.input.MouseButton;
+
+import java.io.IOException;
+
+/**
+ * Plays a replay back on the FX thread. On every pulse the actions, whose
+ * time has come, are read from the {@link ReplayReader} and applied through
+ * {@link MouseClickHandler#click(int, int, MouseButton)}, the same game
+ * logic as the clicks of the player.
+ * <p>
+ * The recorded times are scaled by the speed. An infinite speed plays the
+ * replay as fast as possible, limited only by {@link #MAX_ACTIONS_PER_PULSE}
+ * so that the board is still drawn between the pulses.
+ */
+public class ReplayPlayer extends AnimationTimer {
+
+    private static final int MAX_ACTIONS_PER_PULSE = 1000;
+
+    private final ReplayReader reader;
+    private final MouseClickHandler clickHandler;
+    private final Runnable onFinished;
+
+    private double speed;
+    private long startNanos = -1;
+    private long replayNanos;
+    private boolean pending;
+    private boolean finished;
+
+    /**
+     * Creates a player. The field of the reader must already be the game
+     * field of the controller.
+     *
+     * @param reader       the replay.
+     * @param clickHandler the game logic.
+     * @param speed        the speed, 1 for real time.
+     * @param onFinished   called once, when the replay ends or is stopped.
+     */
+    public ReplayPlayer(ReplayReader reader, MouseClickHandler clickHandler, double speed, Runnable onFinished) {
+        this.reader = reader;
+        this.clickHandler = clickHandler;
+        this.speed = speed;
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * Changes the speed, continuing from the current replay time.
+     *
+     * @param speed the new speed, 1 for real time.
+     */
+    public void setSpeed(double speed) {
+        this.speed = speed;
+        this.startNanos = -1;
+    }
+
+    /**
+     * Applies the actions due at the current pulse.
+     *
+     * @param now the time of the pulse in nanoseconds.
+     */
+    @Override
+    public void handle(long now) {
+
+        long pulseNanos = System.nanoTime();
+
+        try {
+            this.applyDueActions(now);
+        } finally {
+            GameMetrics.pulseHandled(pulseNanos);
+        }
+    }
+
+    /**
+     * Applies the actions, whose time has come, but not more than
+     * {@link #MAX_ACTIONS_PER_PULSE}.
+     *
+     * @param now the time of the pulse in nanoseconds.
+     */
+    private void applyDueActions(long now) {
+
+        if (this.startNanos < 0) {
+            this.startNanos = now - (long) (this.replayNanos / this.speed);
+        }
+
+        this.replayNanos = Double.isInfinite(this.speed)
+                ? Long.MAX_VALUE
+                : (long) ((now - this.startNanos) * this.speed);
+
+        try {
+            for (int applied = 0; applied < MAX_ACTIONS_PER_PULSE; applied++) {
+
+                if (!this.pending && !this.reader.next()) {
+                    this.stop();
+                    return;
+                }
+
+                if (this.reader.getTimeNanos() > this.replayNanos) {
+                    this.pending = true;
+                    return;
+                }
+
+                this.pending = false;
+                this.apply(this.reader.getAction(), this.reader.getRow(), this.reader.getColumn());
+            }
+        } catch (IOException e) {
+            this.stop();
+        }
+
+        if (Double.isInfinite(this.speed)) {
+            this.replayNanos = this.reader.getTimeNanos();
+        }
+    }
+
+    /**
+     * Stops the playback and closes the replay.
+     */
+    @Override
+    public void stop() {
+
+        super.stop();
+
+        if (this.finished) {
+            return;
+        }
+
+        this.finished = true;
+
+        try {
+            this.reader.close();
+        } catch (IOException e) {
+            // The replay has been read already.
+        }
+
+        this.onFinished.run();
+    }
+
+    /**
+     * Applies a recorded action the same way as a click.
+     *
+     * @param action the action.
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    private void apply(ReplayAction action, int row, int column) {
+        switch (action) {
+            case Open:
+                this.clickHandler.click(row, column, MouseButton.PRIMARY);
+                break;
+            case Flag:
+                this.clickHandler.click(row, column, MouseButton.SECONDARY);
+                break;
+            case Chord:
+                this.clickHandler.click(row, column, MouseButton.MIDDLE);
+                break;
+        }
+    }
+}
@@ -2,39 +2,105 @@ package bg.softuni.poosweeper.utils;
 
 import javafx.scene.media.AudioClip;
 
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for playing audio clip files.
+ * <p>
+ * The clips are loaded from the {@code sounds} folder on the classpath, so
+ * they do not depend on the working directory. Every clip is decoded only
+ * once on a background daemon thread and then cached. {@link #preload()}
+ * decodes all clips at startup, so playing a clip later is only a
+ * non-blocking trigger on the cached instance.
  */
-class SoundHandler {
+public class SoundHandler {
 
-    private static final String FILE_RESOURCES_SOUNDS = "file:resources/sounds/";
+    private static final String SOUNDS_FOLDER = "/sounds/";
     private static final String EXTENSION_MP3 = ".mp3";
+    private static final int FART_CLIP_COUNT = 7;
+    private static final int MAX_VOICES = 3;
     private static final Random random = new Random();
+    private static final Map<String, CompletableFuture<AudioClip>> clips = new ConcurrentHashMap<>();
+    private static final Executor loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "poosweeper-sound-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts decoding all audio clips in the background.
+     */
+    public static void preload() {
+        for (int index = 1; index <= FART_CLIP_COUNT; index++) {
+            load("fart" + index + EXTENSION_MP3);
+        }
+        load("winning" + EXTENSION_MP3);
+    }
 
     /**
      * Play a random fart audio clip.
      */
     public static void playRandomFartClip() {
-        int index = random.nextInt(7) + 1;
-        play(FILE_RESOURCES_SOUNDS + "fart" + index + EXTENSION_MP3);
+        int index = random.nextInt(FART_CLIP_COUNT) + 1;
+        play("fart" + index + EXTENSION_MP3);
     }
 
     /**
      * Play winning audio clip.
      */
     public static void playWinningClip() {
-        play(FILE_RESOURCES_SOUNDS + "winning" + EXTENSION_MP3);
+        play("winning" + EXTENSION_MP3);
     }
 
     /**
-     * Play an audio clip with the given file name.
+     * Play an audio clip with the given file name. If the clip is still
+     * being decoded, it is played as soon as it is ready. The clip is not
+     * played at all if {@link #MAX_VOICES} clips are already playing.
      *
-     * @param fileName the name of the sound file.
+     * @param fileName the name of the sound file in the {@code sounds} folder.
      */
     private static void play(String fileName) {
-        AudioClip audioClip = new AudioClip(fileName);
-        audioClip.play();
+        load(fileName).thenAccept(audioClip -> {
+            if (countPlayingClips() < MAX_VOICES) {
+                audioClip.play();
+            }
+        });
+    }
+
+    /**
+     * Returns the cached clip with the given file name, starting to decode it
+     * in the background if this has not been done yet.
+     *
+     * @param fileName the name of the sound file in the {@code sounds} folder.
+     * @return the future decoded clip.
+     */
+    private static CompletableFuture<AudioClip> load(String fileName) {
+        return clips.computeIfAbsent(fileName, name -> CompletableFuture.supplyAsync(
+                () -> new AudioClip(SoundHandler.class.getResource(SOUNDS_FOLDER + name).toExternalForm()),
+                loader));
+    }
+
+    /**
+     * Counts the decoded clips, which are currently playing.
+     *
+     * @return the number of playing clips.
+     */
+    private static int countPlayingClips() {
+
+        int playing = 0;
+
+        for (CompletableFuture<AudioClip> clip : clips.values()) {
+            AudioClip audioClip = clip.getNow(null);
+            if (audioClip != null && audioClip.isPlaying()) {
+                playing++;
+            }
+        }
+
+        return playing;
     }
 }
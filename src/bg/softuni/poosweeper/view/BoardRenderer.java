@@ -0,0 +1,165 @@
+package bg.softuni.poosweeper.view;
+
+import bg.softuni.poosweeper.controller.MainController;
+import bg.softuni.poosweeper.events.UiBatchAppliedEvent;
+import bg.softuni.poosweeper.metrics.GameMetrics;
+import bg.softuni.poosweeper.model.Field;
+import javafx.animation.AnimationTimer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the changes of the game field to the board view once per JavaFX
+ * pulse. The game logic only changes the {@link Field}, which records the
+ * changed cells, and calls {@link #start()}. On the next pulse the renderer
+ * takes the dirty cells, draws each of them from its current state and
+ * stops again, so no pulses are requested while nothing changes.
+ * <p>
+ * In the progressive mode a pulse draws cells only until its time budget is
+ * spent and leaves the rest for the following pulses. The dirty cells are
+ * drawn in the order of the changes, which for a flood fill is the order of
+ * the breadth-first traversal, so a big region spreads out from the clicked
+ * cell while the window keeps handling input. The field itself is already
+ * fully updated, so the game logic never waits for the animation.
+ */
+public class BoardRenderer extends AnimationTimer {
+
+    private static final long FRAME_BUDGET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("poosweeper.reveal.budget", 4L));
+    private static final int CELLS_PER_TIME_CHECK = 64;
+
+    private final MainController controller;
+
+    private boolean progressive = true;
+    private Field pendingField;
+    private int[] pending = new int[0];
+    private int pendingStart;
+    private int pendingEnd;
+
+    /**
+     * Creates a renderer for the current field and board view of the controller.
+     *
+     * @param controller the main controller.
+     */
+    public BoardRenderer(MainController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Switches the progressive mode on or off.
+     *
+     * @param progressive {@code true} to draw the changes within the time
+     *                    budget of each pulse, {@code false} to draw them all
+     *                    on the next pulse.
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * Draws the changed cells, or as many of them as the time budget allows
+     * in the progressive mode, and stops when none are left.
+     *
+     * @param now the time of the pulse in nanoseconds.
+     */
+    @Override
+    public void handle(long now) {
+
+        UiBatchAppliedEvent event = new UiBatchAppliedEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + FRAME_BUDGET_NANOS;
+        this.takeDirtyCells();
+        int waiting = this.pendingEnd - this.pendingStart;
+
+        if (!this.progressive) {
+            this.draw(this.pendingEnd);
+        }
+
+        while (this.pendingStart < this.pendingEnd && System.nanoTime() < deadline) {
+            this.draw(Math.min(this.pendingEnd, this.pendingStart + CELLS_PER_TIME_CHECK));
+        }
+
+        if (this.pendingStart == this.pendingEnd) {
+            this.stop();
+            GameMetrics.batchRendered();
+        }
+
+        GameMetrics.pulseHandled(startNanos);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.remaining = this.pendingEnd - this.pendingStart;
+            event.count = waiting - event.remaining;
+            event.progressive = this.progressive;
+            event.commit();
+        }
+    }
+
+    /**
+     * Draws all changed cells right away. Called before the board view is
+     * changed directly, for example to show the poos at the end of a game.
+     */
+    public void flush() {
+        this.takeDirtyCells();
+        this.draw(this.pendingEnd);
+        GameMetrics.batchRendered();
+    }
+
+    /**
+     * Appends the dirty cells of the current field to the cells waiting to
+     * be drawn. The waiting cells of a previous field are dropped.
+     */
+    private void takeDirtyCells() {
+
+        Field field = this.controller.getField();
+
+        if (field != this.pendingField) {
+            this.pendingField = field;
+            this.pendingStart = 0;
+            this.pendingEnd = 0;
+        }
+
+        int[] dirty = field.takeDirtyIndices();
+
+        if (this.pendingStart == this.pendingEnd) {
+            this.pending = dirty;
+            this.pendingStart = 0;
+            this.pendingEnd = dirty.length;
+        } else if (dirty.length > 0) {
+            int waiting = this.pendingEnd - this.pendingStart;
+            int[] merged = Arrays.copyOfRange(this.pending, this.pendingStart, this.pendingEnd + dirty.length);
+            System.arraycopy(dirty, 0, merged, waiting, dirty.length);
+            this.pending = merged;
+            this.pendingStart = 0;
+            this.pendingEnd = merged.length;
+        }
+    }
+
+    /**
+     * Draws the waiting cells up to the given position, each from its
+     * current state.
+     *
+     * @param end the position in {@link #pending} after the last cell to draw.
+     */
+    private void draw(int end) {
+
+        Field field = this.pendingField;
+        BoardView boardView = this.controller.getBoardView();
+        int columns = field.getColumns();
+
+        for (; this.pendingStart < end; this.pendingStart++) {
+
+            int index = this.pending[this.pendingStart];
+            int row = index / columns;
+            int column = index % columns;
+
+            if (field.isOpen(row, column)) {
+                boardView.showOpened(row, column, field.getCellValue(row, column));
+            } else {
+                boardView.showFlagged(row, column, field.isFlagged(row, column));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package bg.softuni.poosweeper.view;
+
+import bg.softuni.poosweeper.controller.MainController;
+import bg.softuni.poosweeper.model.CellValue;
+import bg.softuni.poosweeper.utils.MouseClickHandler;
+import javafx.scene.Node;
+
+/**
+ * A visual representation of the game board. Implementations decide how the
+ * cells are drawn, while {@link MainController} and the game logic only tell
+ * them which cells have changed. Clicks are handled by a single
+ * {@link MouseClickHandler} installed on {@link #getNode()}, which maps the
+ * mouse position to a cell through {@link #getCellAt(double, double)}.
+ */
+public interface BoardView {
+
+    /**
+     * Returns the UI node, which displays the board.
+     *
+     * @return the node to add to the scene.
+     */
+    Node getNode();
+
+    /**
+     * Rebuilds the board for a new game with all cells closed.
+     *
+     * @param rows    the number of rows of the new field.
+     * @param columns the number of columns of the new field.
+     */
+    void reset(int rows, int columns);
+
+    /**
+     * Finds the cell under the given point.
+     *
+     * @param x the horizontal position in the coordinates of {@link #getNode()}.
+     * @param y the vertical position in the coordinates of {@link #getNode()}.
+     * @return the index ({@code row * columns + column}) of the cell, or -1 if
+     * the point is outside of the board.
+     */
+    int getCellAt(double x, double y);
+
+    /**
+     * Displays a cell as opened.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @param value  the value of the opened cell.
+     */
+    void showOpened(int row, int column, CellValue value);
+
+    /**
+     * Displays or hides the flag of a cell.
+     *
+     * @param row     the row of the cell.
+     * @param column  the column of the cell.
+     * @param flagged {@code true} if the cell is flagged; otherwise, {@code false}.
+     */
+    void showFlagged(int row, int column, boolean flagged);
+
+    /**
+     * Displays the poo in a cell after the game is lost.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    void showPoo(int row, int column);
+
+    /**
+     * Displays a flag, which was placed on a cell without a poo.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    void showMistake(int row, int column);
+
+    /**
+     * Displays the poo, which was clicked and lost the game.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    void showBoom(int row, int column);
+}
@@ -0,0 +1,255 @@
+package bg.softuni.poosweeper.view;
+
+import bg.softuni.poosweeper.model.CellValue;
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.RowConstraints;
+
+import java.util.List;
+
+/**
+ * A {@link BoardView} which displays every cell as a separate {@link Button}
+ * styled through the {@code main.css} pseudo-classes. Changing the state of a
+ * pseudo-class does not touch the style class list, so a cell never collects
+ * stale classes and resetting it only switches its pseudo-classes off.
+ * <p>
+ * The buttons and grid constraints are recycled between games. A new game
+ * only resets the state of the buttons that are already in the grid, hides
+ * the ones outside of the new field and creates buttons only for cells that
+ * did not exist in any previous game.
+ * <p>
+ * Every button has a fixed size, so the cell under the mouse pointer is
+ * calculated from the position alone and the buttons need no click handlers.
+ */
+public class ButtonBoardView implements BoardView {
+
+    private static final PseudoClass CLICKED = PseudoClass.getPseudoClass("clicked");
+    private static final PseudoClass CLICKED_BOOM = PseudoClass.getPseudoClass("clicked-boom");
+    private static final PseudoClass MISTAKE = PseudoClass.getPseudoClass("mistake");
+    private static final PseudoClass[] VALUE_PSEUDO_CLASSES = createValuePseudoClasses();
+    private static final PseudoClass FLAGGED = VALUE_PSEUDO_CLASSES[CellValue.Flag.ordinal()];
+    private static final PseudoClass POO = VALUE_PSEUDO_CLASSES[CellValue.Poo.ordinal()];
+    private static final double CELL_SIZE = 30.0;
+
+    private final GridPane visualGrid;
+    private Button[][] visualButtons = new Button[0][0];
+    private int rows;
+    private int columns;
+
+    /**
+     * Creates an instance which places its buttons in the given grid.
+     *
+     * @param visualGrid the grid pane defined in {@code main.fxml}.
+     */
+    public ButtonBoardView(GridPane visualGrid) {
+        this.visualGrid = visualGrid;
+    }
+
+    @Override
+    public Node getNode() {
+        return this.visualGrid;
+    }
+
+    @Override
+    public void reset(int rows, int columns) {
+
+        this.rows = rows;
+        this.columns = columns;
+
+        this.setVisualColumns(columns);
+        this.setVisualRows(rows);
+        this.addVisualButtons(rows, columns);
+        this.resetVisualButtons(rows, columns);
+    }
+
+    @Override
+    public int getCellAt(double x, double y) {
+
+        int row = (int) Math.floor(y / CELL_SIZE);
+        int column = (int) Math.floor(x / CELL_SIZE);
+
+        if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+            return -1;
+        }
+
+        return row * this.columns + column;
+    }
+
+    @Override
+    public void showOpened(int row, int column, CellValue value) {
+        Button cellButton = this.visualButtons[row][column];
+        cellButton.setText(value.toString());
+        cellButton.pseudoClassStateChanged(FLAGGED, false);
+        cellButton.pseudoClassStateChanged(CLICKED, true);
+        if (VALUE_PSEUDO_CLASSES[value.ordinal()] != null) {
+            cellButton.pseudoClassStateChanged(VALUE_PSEUDO_CLASSES[value.ordinal()], true);
+        }
+    }
+
+    @Override
+    public void showFlagged(int row, int column, boolean flagged) {
+        this.visualButtons[row][column].pseudoClassStateChanged(FLAGGED, flagged);
+    }
+
+    @Override
+    public void showPoo(int row, int column) {
+        this.visualButtons[row][column].pseudoClassStateChanged(POO, true);
+    }
+
+    @Override
+    public void showMistake(int row, int column) {
+        this.visualButtons[row][column].pseudoClassStateChanged(MISTAKE, true);
+    }
+
+    @Override
+    public void showBoom(int row, int column) {
+        this.visualButtons[row][column].pseudoClassStateChanged(CLICKED_BOOM, true);
+    }
+
+    /**
+     * Makes the number of {@link ColumnConstraints} of the {@link #visualGrid}
+     * equal to the number of columns, reusing the existing constraints.
+     *
+     * @param columns the number of columns of the field.
+     * @see GridPane
+     */
+    private void setVisualColumns(int columns) {
+
+        List<ColumnConstraints> constraints = this.visualGrid.getColumnConstraints();
+
+        if (constraints.size() > columns) {
+            constraints.subList(columns, constraints.size()).clear();
+        }
+
+        while (constraints.size() < columns) {
+            constraints.add(new ColumnConstraints());
+        }
+    }
+
+    /**
+     * Makes the number of {@link RowConstraints} of the {@link #visualGrid}
+     * equal to the number of rows, reusing the existing constraints.
+     *
+     * @param rows the number of rows of the field.
+     * @see GridPane
+     */
+    private void setVisualRows(int rows) {
+
+        List<RowConstraints> constraints = this.visualGrid.getRowConstraints();
+
+        if (constraints.size() > rows) {
+            constraints.subList(rows, constraints.size()).clear();
+        }
+
+        while (constraints.size() < rows) {
+            constraints.add(new RowConstraints());
+        }
+    }
+
+    /**
+     * Grows the {@link #visualButtons} matrix so that it covers the given
+     * field size. Only the missing {@link Button} objects are created and
+     * added to the {@link #visualGrid}.
+     *
+     * @param rows    the number of rows of the field.
+     * @param columns the number of columns of the field.
+     */
+    private void addVisualButtons(int rows, int columns) {
+
+        int oldRows = this.visualButtons.length;
+        int oldColumns = oldRows > 0 ? this.visualButtons[0].length : 0;
+
+        if (rows <= oldRows && columns <= oldColumns) {
+            return;
+        }
+
+        int poolRows = Math.max(rows, oldRows);
+        int poolColumns = Math.max(columns, oldColumns);
+        Button[][] pool = new Button[poolRows][poolColumns];
+
+        for (int row = 0; row < poolRows; row++) {
+            for (int column = 0; column < poolColumns; column++) {
+                if (row < oldRows && column < oldColumns) {
+                    pool[row][column] = this.visualButtons[row][column];
+                } else {
+                    pool[row][column] = createVisualButton();
+                    this.visualGrid.add(pool[row][column], column, row);
+                }
+            }
+        }
+
+        this.visualButtons = pool;
+    }
+
+    /**
+     * Resets the buttons inside the field to their initial state and hides
+     * the buttons outside of it. Hidden buttons are not managed, so they do
+     * not take space in the {@link #visualGrid}.
+     *
+     * @param rows    the number of rows of the field.
+     * @param columns the number of columns of the field.
+     */
+    private void resetVisualButtons(int rows, int columns) {
+        for (int row = 0; row < this.visualButtons.length; row++) {
+            for (int column = 0; column < this.visualButtons[row].length; column++) {
+
+                Button cellButton = this.visualButtons[row][column];
+                boolean inside = row < rows && column < columns;
+
+                cellButton.setVisible(inside);
+                cellButton.setManaged(inside);
+
+                if (inside) {
+                    cellButton.setText("");
+                    cellButton.pseudoClassStateChanged(CLICKED, false);
+                    cellButton.pseudoClassStateChanged(CLICKED_BOOM, false);
+                    cellButton.pseudoClassStateChanged(MISTAKE, false);
+                    for (PseudoClass pseudoClass : VALUE_PSEUDO_CLASSES) {
+                        if (pseudoClass != null) {
+                            cellButton.pseudoClassStateChanged(pseudoClass, false);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the pseudo-classes of the cell values, named after their
+     * {@link CellValue#getStyleClass()}.
+     *
+     * @return the pseudo-classes indexed by the {@link CellValue} ordinal,
+     * {@code null} for {@link CellValue#Empty}.
+     */
+    private static PseudoClass[] createValuePseudoClasses() {
+
+        CellValue[] values = CellValue.values();
+        PseudoClass[] pseudoClasses = new PseudoClass[values.length];
+
+        for (CellValue value : values) {
+            if (!value.getStyleClass().isEmpty()) {
+                pseudoClasses[value.ordinal()] = PseudoClass.getPseudoClass(value.getStyleClass());
+            }
+        }
+
+        return pseudoClasses;
+    }
+
+    /**
+     * Creates a single {@link Button} instance with a fixed size.
+     *
+     * @return the button instance.
+     */
+    private static Button createVisualButton() {
+
+        Button cellButton = new Button();
+        cellButton.setMinSize(CELL_SIZE, CELL_SIZE);
+        cellButton.setPrefSize(CELL_SIZE, CELL_SIZE);
+        cellButton.setMaxSize(CELL_SIZE, CELL_SIZE);
+
+        return cellButton;
+    }
+}
@@ -0,0 +1,425 @@
+package bg.softuni.poosweeper.view;
+
+import bg.softuni.poosweeper.model.CellValue;
+import bg.softuni.poosweeper.utils.ImageAsset;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+
+/**
+ * A {@link BoardView} which draws the board on a {@link Canvas} of the size of
+ * the visible area, so boards of any size can be displayed. The scroll wheel
+ * pans the board and the scroll wheel with the control key held down zooms
+ * around the mouse pointer. A {@link Minimap} in the corner shows the whole
+ * board and moves the visible area when it is clicked or dragged.
+ * <p>
+ * Every possible cell appearance is rendered once per zoom level into a
+ * sprite, and the appearance of every cell is kept in {@link #cellSprites}.
+ * Changing a visible cell only draws its sprite over the cell's rectangle;
+ * changing a hidden cell draws nothing. Panning and zooming draw only the
+ * visible cells again, at most once per pulse.
+ */
+public class CanvasBoardView implements BoardView {
+
+    private static final int DEFAULT_CELL_SIZE = 30;
+    private static final int MIN_CELL_SIZE = 4;
+    private static final int MAX_CELL_SIZE = 60;
+    private static final double ZOOM_FACTOR = 1.25;
+    private static final double MAX_VIEWPORT_WIDTH = 1200;
+    private static final double MAX_VIEWPORT_HEIGHT = 800;
+    private static final double MINIMAP_MARGIN = 10;
+
+    private static final int SPRITE_CLOSED = 9;
+    private static final int SPRITE_FLAGGED = 10;
+    private static final int SPRITE_POO = 11;
+    private static final int SPRITE_MISTAKE = 12;
+    private static final int SPRITE_BOOM = 13;
+    private static final int SPRITE_COUNT = 14;
+
+    private static final Color BACKGROUND_COLOR = Color.web("#f4f4f4");
+    private static final Color CLOSED_COLOR = Color.web("#dcdcdc");
+    private static final Color OPENED_COLOR = Color.web("#d3d3d3");
+    private static final Color BORDER_COLOR = Color.web("#a9a9a9");
+    private static final Color SHADOW_COLOR = Color.web("#808080");
+    private static final Color[] HINT_COLORS = {
+            Color.TRANSPARENT,
+            Color.web("#006400"),
+            Color.web("#8a2be2"),
+            Color.web("#ff00ff"),
+            Color.web("#ff4500"),
+            Color.web("#dc143c"),
+            Color.web("#cd853f"),
+            Color.web("#8b4513"),
+            Color.web("#000000")
+    };
+
+    private final Pane viewport;
+    private final Canvas canvas;
+    private final Minimap minimap;
+    private final Image[] sprites;
+    private final AnimationTimer redrawTimer;
+    private byte[] cellSprites = new byte[0];
+    private int rows;
+    private int columns;
+    private int cellSize;
+    private int renderedCellSize;
+    private int offsetX;
+    private int offsetY;
+    private boolean redrawPending;
+
+    /**
+     * Creates an instance with an empty canvas.
+     */
+    public CanvasBoardView() {
+
+        this.canvas = new Canvas();
+        this.minimap = new Minimap();
+        this.sprites = new Image[SPRITE_COUNT];
+        this.cellSize = DEFAULT_CELL_SIZE;
+
+        this.viewport = new Pane(this.canvas, this.minimap.getNode());
+        this.viewport.setMinSize(0, 0);
+        this.viewport.widthProperty().addListener((observable, oldWidth, newWidth) -> this.resizeCanvas());
+        this.viewport.heightProperty().addListener((observable, oldHeight, newHeight) -> this.resizeCanvas());
+        this.viewport.addEventHandler(ScrollEvent.SCROLL, this::onScroll);
+
+        Node minimapNode = this.minimap.getNode();
+        minimapNode.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onMinimapDragged);
+        minimapNode.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onMinimapDragged);
+
+        this.redrawTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                this.stop();
+                CanvasBoardView.this.redraw();
+            }
+        };
+    }
+
+    @Override
+    public Node getNode() {
+        return this.viewport;
+    }
+
+    @Override
+    public void reset(int rows, int columns) {
+
+        this.rows = rows;
+        this.columns = columns;
+        this.offsetX = 0;
+        this.offsetY = 0;
+
+        if (this.cellSprites.length != rows * columns) {
+            this.cellSprites = new byte[rows * columns];
+        }
+        Arrays.fill(this.cellSprites, (byte) SPRITE_CLOSED);
+
+        this.minimap.reset(rows, columns);
+        this.viewport.setPrefSize(
+                Math.min(MAX_VIEWPORT_WIDTH, (double) columns * this.cellSize),
+                Math.min(MAX_VIEWPORT_HEIGHT, (double) rows * this.cellSize));
+
+        this.requestRedraw();
+    }
+
+    @Override
+    public int getCellAt(double x, double y) {
+
+        Node minimapNode = this.minimap.getNode();
+        if (minimapNode.isVisible() && minimapNode.getBoundsInParent().contains(x, y)) {
+            return -1;
+        }
+
+        int row = (int) Math.floor((y + this.offsetY) / this.cellSize);
+        int column = (int) Math.floor((x + this.offsetX) / this.cellSize);
+
+        if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+            return -1;
+        }
+
+        return row * this.columns + column;
+    }
+
+    @Override
+    public void showOpened(int row, int column, CellValue value) {
+
+        int sprite = this.cellSprites[row * this.columns + column];
+
+        if (sprite == SPRITE_FLAGGED) {
+            this.minimap.showFlagged(row, column, false);
+        }
+        if (sprite == SPRITE_CLOSED || sprite == SPRITE_FLAGGED) {
+            this.minimap.showOpened(row, column);
+        }
+
+        this.setSprite(row, column, value.ordinal());
+    }
+
+    @Override
+    public void showFlagged(int row, int column, boolean flagged) {
+        int sprite = flagged ? SPRITE_FLAGGED : SPRITE_CLOSED;
+        if (this.cellSprites[row * this.columns + column] != sprite) {
+            this.minimap.showFlagged(row, column, flagged);
+            this.setSprite(row, column, sprite);
+        }
+    }
+
+    @Override
+    public void showPoo(int row, int column) {
+        this.minimap.showPoo(row, column, false);
+        this.setSprite(row, column, SPRITE_POO);
+    }
+
+    @Override
+    public void showMistake(int row, int column) {
+        this.setSprite(row, column, SPRITE_MISTAKE);
+    }
+
+    @Override
+    public void showBoom(int row, int column) {
+        this.minimap.showPoo(row, column, true);
+        this.setSprite(row, column, SPRITE_BOOM);
+    }
+
+    /**
+     * Stores the appearance of a cell and draws it, if it is visible and no
+     * full redraw is pending anyway.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @param sprite the index of the sprite in {@link #sprites}.
+     */
+    private void setSprite(int row, int column, int sprite) {
+
+        this.cellSprites[row * this.columns + column] = (byte) sprite;
+
+        if (this.redrawPending) {
+            return;
+        }
+
+        double x = (double) column * this.cellSize - this.offsetX;
+        double y = (double) row * this.cellSize - this.offsetY;
+
+        if (x > -this.cellSize && x < this.canvas.getWidth() && y > -this.cellSize && y < this.canvas.getHeight()) {
+            this.canvas.getGraphicsContext2D().drawImage(this.sprites[sprite], x, y);
+        }
+    }
+
+    /**
+     * Draws the visible cells again on the next pulse.
+     */
+    private void requestRedraw() {
+        this.redrawPending = true;
+        this.redrawTimer.start();
+    }
+
+    /**
+     * Draws all visible cells and moves the minimap frame. The minimap stays
+     * in the top right corner and is hidden when the whole board is visible.
+     */
+    private void redraw() {
+
+        this.redrawPending = false;
+
+        if (this.renderedCellSize != this.cellSize) {
+            this.renderedCellSize = this.cellSize;
+            this.renderSprites();
+        }
+
+        double width = this.canvas.getWidth();
+        double height = this.canvas.getHeight();
+        GraphicsContext graphics = this.canvas.getGraphicsContext2D();
+
+        graphics.setFill(BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, width, height);
+
+        int firstRow = this.offsetY / this.cellSize;
+        int lastRow = Math.min(this.rows - 1, (int) ((this.offsetY + height - 1) / this.cellSize));
+        int firstColumn = this.offsetX / this.cellSize;
+        int lastColumn = Math.min(this.columns - 1, (int) ((this.offsetX + width - 1) / this.cellSize));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            double y = (double) row * this.cellSize - this.offsetY;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                double x = (double) column * this.cellSize - this.offsetX;
+                graphics.drawImage(this.sprites[this.cellSprites[row * this.columns + column]], x, y);
+            }
+        }
+
+        double boardWidth = (double) this.columns * this.cellSize;
+        double boardHeight = (double) this.rows * this.cellSize;
+
+        Node minimapNode = this.minimap.getNode();
+        minimapNode.setVisible(boardWidth > width || boardHeight > height);
+        minimapNode.relocate(width - this.minimap.getDisplayWidth() - MINIMAP_MARGIN, MINIMAP_MARGIN);
+        this.minimap.setVisibleArea(this.offsetX / boardWidth, this.offsetY / boardHeight,
+                width / boardWidth, height / boardHeight);
+    }
+
+    /**
+     * Makes the canvas as big as the viewport.
+     */
+    private void resizeCanvas() {
+
+        this.canvas.setWidth(this.viewport.getWidth());
+        this.canvas.setHeight(this.viewport.getHeight());
+        this.scrollTo(this.offsetX, this.offsetY);
+    }
+
+    /**
+     * Pans or, with the control key held down, zooms the board.
+     *
+     * @param event the scroll event.
+     */
+    private void onScroll(ScrollEvent event) {
+
+        if (event.isControlDown()) {
+            double factor = event.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
+            this.zoom(factor, event.getX(), event.getY());
+        } else {
+            this.scrollTo(this.offsetX - event.getDeltaX(), this.offsetY - event.getDeltaY());
+        }
+
+        event.consume();
+    }
+
+    /**
+     * Centers the visible area on the point of the minimap under the mouse.
+     *
+     * @param event the mouse event on the minimap.
+     */
+    private void onMinimapDragged(MouseEvent event) {
+
+        double boardX = event.getX() / this.minimap.getDisplayWidth() * this.columns * this.cellSize;
+        double boardY = event.getY() / this.minimap.getDisplayHeight() * this.rows * this.cellSize;
+
+        this.scrollTo(boardX - this.canvas.getWidth() / 2, boardY - this.canvas.getHeight() / 2);
+        event.consume();
+    }
+
+    /**
+     * Changes the cell size, keeping the cell under the given point in place.
+     *
+     * @param factor the ratio of the new and the current cell size.
+     * @param x      the horizontal position of the fixed point in the viewport.
+     * @param y      the vertical position of the fixed point in the viewport.
+     */
+    private void zoom(double factor, double x, double y) {
+
+        int cellSize = (int) Math.round(this.cellSize * factor);
+        if (cellSize == this.cellSize) {
+            cellSize += factor > 1 ? 1 : -1;
+        }
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize));
+
+        if (cellSize == this.cellSize) {
+            return;
+        }
+
+        double boardX = (this.offsetX + x) / this.cellSize;
+        double boardY = (this.offsetY + y) / this.cellSize;
+
+        this.cellSize = cellSize;
+        this.scrollTo(boardX * cellSize - x, boardY * cellSize - y);
+    }
+
+    /**
+     * Moves the visible area, keeping it inside the board, and draws it on
+     * the next pulse.
+     *
+     * @param x the left edge of the visible area on the board in pixels.
+     * @param y the top edge of the visible area on the board in pixels.
+     */
+    private void scrollTo(double x, double y) {
+
+        double maxX = Math.max(0, (double) this.columns * this.cellSize - this.canvas.getWidth());
+        double maxY = Math.max(0, (double) this.rows * this.cellSize - this.canvas.getHeight());
+
+        this.offsetX = (int) Math.round(Math.max(0, Math.min(maxX, x)));
+        this.offsetY = (int) Math.round(Math.max(0, Math.min(maxY, y)));
+
+        this.requestRedraw();
+    }
+
+    /**
+     * Renders all cell appearances for the current {@link #cellSize}.
+     */
+    private void renderSprites() {
+
+        Image poo = ImageAsset.Poo.getLoadedImage();
+        Image leaf = ImageAsset.Leaf.getLoadedImage();
+        Image incorrectFlag = ImageAsset.IncorrectFlag.getLoadedImage();
+
+        for (int hint = 0; hint < HINT_COLORS.length; hint++) {
+            this.sprites[hint] = this.renderSprite(OPENED_COLOR, false,
+                    CellValue.values()[hint].toString(), HINT_COLORS[hint], null);
+        }
+
+        this.sprites[SPRITE_CLOSED] = this.renderSprite(CLOSED_COLOR, true, null, null, null);
+        this.sprites[SPRITE_FLAGGED] = this.renderSprite(OPENED_COLOR, true, null, null, leaf);
+        this.sprites[SPRITE_POO] = this.renderSprite(OPENED_COLOR, false, null, null, poo);
+        this.sprites[SPRITE_MISTAKE] = this.renderSprite(OPENED_COLOR, false, null, null, incorrectFlag);
+        this.sprites[SPRITE_BOOM] = this.renderSprite(Color.RED, false, null, null, poo);
+    }
+
+    /**
+     * Renders a single cell appearance into an image.
+     *
+     * @param background the background color of the cell.
+     * @param raised     {@code true} for a closed (raised) cell; otherwise, {@code false}.
+     * @param text       the text in the cell or {@code null}.
+     * @param textColor  the color of the text.
+     * @param image      the image in the cell or {@code null}.
+     * @return the rendered sprite.
+     */
+    private Image renderSprite(Color background, boolean raised, String text, Color textColor, Image image) {
+
+        int size = this.cellSize;
+        Canvas spriteCanvas = new Canvas(size, size);
+        GraphicsContext graphics = spriteCanvas.getGraphicsContext2D();
+
+        graphics.setFill(background);
+        graphics.fillRect(0, 0, size, size);
+
+        if (raised) {
+            graphics.setFill(Color.WHITE);
+            graphics.fillRect(0, 0, size, 1);
+            graphics.fillRect(0, 0, 1, size);
+            graphics.setFill(SHADOW_COLOR);
+            graphics.fillRect(0, size - 1, size, 1);
+            graphics.fillRect(size - 1, 0, 1, size);
+        } else {
+            graphics.setStroke(BORDER_COLOR);
+            graphics.strokeRect(0.5, 0.5, size - 1, size - 1);
+        }
+
+        if (image != null) {
+            graphics.drawImage(image, 2, 2, size - 4, size - 4);
+        }
+
+        if (text != null) {
+            graphics.setFill(textColor);
+            graphics.setFont(Font.font(Font.getDefault().getFamily(), FontWeight.BOLD, size / 2.0));
+            graphics.setTextAlign(TextAlignment.CENTER);
+            graphics.setTextBaseline(VPos.CENTER);
+            graphics.fillText(text, size / 2.0, size / 2.0);
+        }
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return spriteCanvas.snapshot(parameters, null);
+    }
+}
@@ -0,0 +1,202 @@
+package bg.softuni.poosweeper.view;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * An overview of the whole board for the {@link CanvasBoardView}. Every
+ * pixel of the image covers a square block of cells and is shaded by how
+ * many of them are open. The counts of the opened and flagged cells are kept
+ * per pixel, so a changed cell rewrites only its own pixel instead of
+ * downsampling the board again. A frame over the image shows the part of
+ * the board visible in the viewport.
+ */
+public class Minimap {
+
+    private static final int MAX_SIZE = 160;
+
+    private static final Color CLOSED_COLOR = Color.web("#9a9a9a");
+    private static final Color OPENED_COLOR = Color.web("#e8e8e8");
+    private static final Color FLAGGED_COLOR = Color.web("#228b22");
+    private static final Color POO_COLOR = Color.web("#8b4513");
+    private static final Color BOOM_COLOR = Color.RED;
+
+    private final ImageView imageView;
+    private final Rectangle frame;
+    private final Group group;
+
+    private PixelWriter writer;
+    private int[] openedCounts;
+    private int[] flaggedCounts;
+    private int rows;
+    private int columns;
+    private int scale;
+    private int width;
+
+    /**
+     * Creates an empty minimap.
+     */
+    public Minimap() {
+
+        this.imageView = new ImageView();
+        this.imageView.setSmooth(false);
+
+        this.frame = new Rectangle();
+        this.frame.setFill(Color.TRANSPARENT);
+        this.frame.setStroke(Color.RED);
+        this.frame.setMouseTransparent(true);
+
+        this.group = new Group(this.imageView, this.frame);
+    }
+
+    /**
+     * Returns the UI node, which displays the minimap.
+     *
+     * @return the node to add over the board.
+     */
+    public Node getNode() {
+        return this.group;
+    }
+
+    /**
+     * Returns the width of the displayed image.
+     *
+     * @return the width in pixels.
+     */
+    public double getDisplayWidth() {
+        return this.imageView.getFitWidth();
+    }
+
+    /**
+     * Returns the height of the displayed image.
+     *
+     * @return the height in pixels.
+     */
+    public double getDisplayHeight() {
+        return this.imageView.getFitHeight();
+    }
+
+    /**
+     * Creates a new image for a new game with all cells closed.
+     *
+     * @param rows    the number of rows of the new field.
+     * @param columns the number of columns of the new field.
+     */
+    public void reset(int rows, int columns) {
+
+        this.rows = rows;
+        this.columns = columns;
+        this.scale = Math.max(1, (Math.max(rows, columns) + MAX_SIZE - 1) / MAX_SIZE);
+        this.width = (columns + this.scale - 1) / this.scale;
+        int height = (rows + this.scale - 1) / this.scale;
+
+        WritableImage image = new WritableImage(this.width, height);
+        this.writer = image.getPixelWriter();
+        this.openedCounts = new int[this.width * height];
+        this.flaggedCounts = new int[this.width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                this.writer.setColor(x, y, CLOSED_COLOR);
+            }
+        }
+
+        double zoom = Math.max(1, MAX_SIZE / Math.max(this.width, height));
+        this.imageView.setImage(image);
+        this.imageView.setFitWidth(this.width * zoom);
+        this.imageView.setFitHeight(height * zoom);
+    }
+
+    /**
+     * Counts a cell as opened.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    public void showOpened(int row, int column) {
+        this.openedCounts[this.pixelOf(row, column)]++;
+        this.updatePixel(row, column);
+    }
+
+    /**
+     * Counts a flag as placed or removed.
+     *
+     * @param row     the row of the cell.
+     * @param column  the column of the cell.
+     * @param flagged {@code true} if the cell is flagged; otherwise, {@code false}.
+     */
+    public void showFlagged(int row, int column, boolean flagged) {
+        this.flaggedCounts[this.pixelOf(row, column)] += flagged ? 1 : -1;
+        this.updatePixel(row, column);
+    }
+
+    /**
+     * Marks the block of a revealed poo at the end of a game.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @param boom   {@code true} for the poo, which lost the game.
+     */
+    public void showPoo(int row, int column, boolean boom) {
+        this.writer.setColor(column / this.scale, row / this.scale, boom ? BOOM_COLOR : POO_COLOR);
+    }
+
+    /**
+     * Moves the frame, which shows the visible part of the board. All values
+     * are fractions of the whole board.
+     *
+     * @param x      the left edge of the visible part.
+     * @param y      the top edge of the visible part.
+     * @param width  the width of the visible part.
+     * @param height the height of the visible part.
+     */
+    public void setVisibleArea(double x, double y, double width, double height) {
+        double displayWidth = this.getDisplayWidth();
+        double displayHeight = this.getDisplayHeight();
+        this.frame.setX(x * displayWidth);
+        this.frame.setY(y * displayHeight);
+        this.frame.setWidth(Math.min(1, width) * displayWidth);
+        this.frame.setHeight(Math.min(1, height) * displayHeight);
+    }
+
+    /**
+     * Calculates the pixel of a cell.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     * @return the index of the pixel in the count arrays.
+     */
+    private int pixelOf(int row, int column) {
+        return row / this.scale * this.width + column / this.scale;
+    }
+
+    /**
+     * Shades the pixel of a cell by the share of opened cells in its block,
+     * or marks it as flagged if the block has a flag.
+     *
+     * @param row    the row of the cell.
+     * @param column the column of the cell.
+     */
+    private void updatePixel(int row, int column) {
+
+        int x = column / this.scale;
+        int y = row / this.scale;
+        int pixel = this.pixelOf(row, column);
+
+        if (this.flaggedCounts[pixel] > 0) {
+            this.writer.setColor(x, y, FLAGGED_COLOR);
+            return;
+        }
+
+        int blockWidth = Math.min(this.scale, this.columns - x * this.scale);
+        int blockHeight = Math.min(this.scale, this.rows - y * this.scale);
+        double opened = (double) this.openedCounts[pixel] / (blockWidth * blockHeight);
+
+        this.writer.setColor(x, y, CLOSED_COLOR.interpolate(OPENED_COLOR, opened));
+    }
+}
@@ -0,0 +1,39 @@
+package bg.softuni.poosweeper.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketOf() throws Exception {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE};
+
+        for (long value : values) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(Histogram.highestValueOf(bucket) >= value);
+            assertTrue(bucket == 0 || Histogram.highestValueOf(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile() throws Exception {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMax(), 1_000_000);
+        assertEquals(histogram.getMean(), 500_500, 0.001);
+        assertEquals(histogram.getValueAtPercentile(50), 500_000, 500_000 / 16);
+        assertEquals(histogram.getValueAtPercentile(99), 990_000, 990_000 / 16);
+        assertEquals(histogram.getValueAtPercentile(100), 1_000_000);
+
+        histogram.reset();
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getValueAtPercentile(50), 0);
+    }
+}
@@ -0,0 +1,63 @@
+package bg.softuni.poosweeper.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ElapsedTimeTest {
+
+    private CountDownLatch published;
+    private String value;
+    private ElapsedTime timer;
+
+    @Before
+    public void setUp() throws Exception {
+        this.published = new CountDownLatch(1);
+        this.timer = new ElapsedTime(value -> {
+            this.value = value;
+            this.published.countDown();
+        });
+    }
+
+    @Test
+    public void start() throws Exception {
+        this.timer.start();
+
+        assertTrue(this.published.await(1, TimeUnit.SECONDS));
+        assertEquals(this.value, "00:00");
+
+        this.timer.stop();
+    }
+
+    @Test
+    public void startWithElapsedTime() throws Exception {
+        this.timer.start(TimeUnit.SECONDS.toNanos(75));
+
+        assertTrue(this.published.await(1, TimeUnit.SECONDS));
+        assertEquals(this.value, "01:15");
+        assertTrue(this.timer.getElapsedNanos() >= TimeUnit.SECONDS.toNanos(75));
+
+        this.timer.stop();
+    }
+
+    @Test
+    public void pause() throws Exception {
+        this.timer.start();
+        this.timer.pause();
+        long elapsed = this.timer.getElapsedNanos();
+
+        Thread.sleep(20);
+        assertEquals(this.timer.getElapsedNanos(), elapsed);
+
+        this.timer.resume();
+        Thread.sleep(20);
+        assertTrue(this.timer.getElapsedNanos() > elapsed);
+
+        this.timer.stop();
+    }
+}
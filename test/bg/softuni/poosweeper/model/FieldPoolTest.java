@@ -0,0 +1,53 @@
+package bg.softuni.poosweeper.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class FieldPoolTest {
+
+    private FieldPool fieldPool;
+
+    @Before
+    public void setUp() throws Exception {
+        this.fieldPool = new FieldPool(2, 0);
+    }
+
+    @Test
+    public void take() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Field field = this.fieldPool.take(Difficulty.Hard);
+
+            assertEquals(field.getRows(), 16);
+            assertEquals(field.getColumns(), 30);
+            assertEquals(field.getPooCount(), 99);
+        }
+
+        this.fieldPool.shutdown();
+    }
+
+    @Test
+    public void takeAfterShutdown() throws Exception {
+        this.fieldPool.shutdown();
+
+        Field field = this.fieldPool.take(Difficulty.Easy);
+
+        assertEquals(field.getRows(), 8);
+        assertEquals(field.getColumns(), 8);
+    }
+
+    @Test
+    public void takeNotPooled() throws Exception {
+        FieldPool pool = new FieldPool(2, 0, EnumSet.of(Difficulty.Easy),
+                Difficulty::createField, difficulty -> new Field(1, 1, 0));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(pool.take(Difficulty.Insane).getRows(), 1);
+        }
+
+        pool.shutdown();
+    }
+}
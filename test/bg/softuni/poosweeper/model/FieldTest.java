@@ -3,7 +3,12 @@ package bg.softuni.poosweeper.model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class FieldTest {
 
@@ -32,4 +37,222 @@ public class FieldTest {
     public void getPooCount() throws Exception {
         assertEquals(this.field.getPooCount(), POO_COUNT);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void toggleFlag() throws Exception {
+        assertTrue(this.field.toggleFlag(0, 0));
+        assertTrue(this.field.isFlagged(0, 0));
+        assertEquals(this.field.getPooCount(), POO_COUNT - 1);
+
+        assertFalse(this.field.toggleFlag(0, 0));
+        assertFalse(this.field.isFlagged(0, 0));
+        assertEquals(this.field.getPooCount(), POO_COUNT);
+    }
+
+    @Test
+    public void openCell() throws Exception {
+        this.field.toggleFlag(0, 0);
+        this.field.openCell(0, 0);
+
+        assertTrue(this.field.isOpen(0, 0));
+        assertFalse(this.field.isFlagged(0, 0));
+        assertEquals(this.field.getPooCount(), POO_COUNT);
+    }
+
+    @Test
+    public void outsideCells() throws Exception {
+        for (int[] cell : new int[][]{{-1, 0}, {0, -1}, {ROWS, 0}, {0, COLUMNS}}) {
+            assertFalse(this.field.isPoo(cell[0], cell[1]));
+            assertFalse(this.field.isOpen(cell[0], cell[1]));
+            assertFalse(this.field.isFlagged(cell[0], cell[1]));
+        }
+    }
+
+    @Test
+    public void isSolved() throws Exception {
+        assertFalse(this.field.isSolved());
+
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                if (!this.field.isPoo(row, column)) {
+                    this.field.openCell(row, column);
+                }
+            }
+        }
+
+        assertTrue(this.field.isSolved());
+    }
+
+    @Test
+    public void getAdjacentIndices() throws Exception {
+        Field emptyField = new Field(ROWS, COLUMNS, 0);
+
+        assertEquals(emptyField.getAdjacentIndices(ROWS / 2, COLUMNS / 2).length, ROWS * COLUMNS);
+        assertEquals(emptyField.getAdjacentIndices(0, 0).length, ROWS * COLUMNS);
+    }
+
+    @Test
+    public void placeHints() throws Exception {
+        Field largeField = new Field(400, 300, 20000);
+
+        for (int row = 0; row < largeField.getRows(); row++) {
+            for (int column = 0; column < largeField.getColumns(); column++) {
+                if (largeField.isPoo(row, column)) {
+                    continue;
+                }
+
+                int pooNear = 0;
+                for (int nearRow = row - 1; nearRow <= row + 1; nearRow++) {
+                    for (int nearColumn = column - 1; nearColumn <= column + 1; nearColumn++) {
+                        if (largeField.isPoo(nearRow, nearColumn)) {
+                            pooNear++;
+                        }
+                    }
+                }
+
+                assertEquals(largeField.getCellValue(row, column).ordinal(), pooNear);
+            }
+        }
+    }
+
+    @Test
+    public void placePoo() throws Exception {
+        assertPooCount(new Field(30, 30, 0), 0);
+        assertPooCount(new Field(30, 30, 450), 450);
+        assertPooCount(new Field(30, 30, 899), 899);
+        assertPooCount(new Field(30, 30, 900), 900);
+    }
+
+    @Test
+    public void placePooWithSeed() throws Exception {
+        Field first = new Field(ROWS, COLUMNS, 100, 42L);
+        Field second = new Field(ROWS, COLUMNS, 100, 42L);
+
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                assertEquals(first.getCellValue(row, column), second.getCellValue(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void placePooWithSafeCell() throws Exception {
+        int[][] safeCells = {{15, 15}, {0, 0}, {29, 0}, {0, 29}, {29, 29}};
+
+        for (int[] safe : safeCells) {
+            for (int pooCount : new int[]{0, 100, 500, 891}) {
+                int safeCount = (safe[0] % 29 == 0 ? 2 : 3) * (safe[1] % 29 == 0 ? 2 : 3);
+                if (pooCount > 900 - safeCount) {
+                    continue;
+                }
+
+                Field field = new Field(30, 30, pooCount, pooCount, safe[0], safe[1]);
+
+                assertPooCount(field, pooCount);
+                assertEquals(field.getCellValue(safe[0], safe[1]), CellValue.Empty);
+                assertFalse(field.isPoo(safe[0], safe[1]));
+            }
+        }
+    }
+
+    @Test
+    public void chord() throws Exception {
+        byte[] cells = new byte[9];
+        cells[0] = Field.POO_BIT;
+        cells[4] = Field.OPEN_BIT;
+        Field field = new Field(3, 3, 1, cells, 1, 0);
+
+        assertFalse(field.canChord(1, 1));
+        assertEquals(field.getChordIndices(1, 1).length, 0);
+
+        field.toggleFlag(0, 0);
+
+        assertTrue(field.canChord(1, 1));
+        assertEquals(field.getChordIndices(1, 1).length, 7);
+
+        field.toggleFlag(0, 0);
+        assertFalse(field.canChord(1, 1));
+
+        field.toggleFlag(0, 0);
+        field.openCell(2, 2);
+        assertTrue(field.canChord(1, 1));
+        assertEquals(field.getChordIndices(1, 1).length, 6);
+    }
+
+    @Test
+    public void chordFloodOpensFlaggedCell() throws Exception {
+        byte[] cells = new byte[18];
+        cells[0] = Field.POO_BIT | Field.FLAG_BIT;
+        cells[1] = Field.OPEN_BIT;
+        cells[5] = Field.POO_BIT;
+        cells[15] = Field.FLAG_BIT;
+        Field field = new Field(3, 6, 2, cells, 1, 2);
+
+        assertEquals(field.getPooCount(), 0);
+
+        for (int index : field.getChordIndices(0, 1)) {
+            for (int opened : field.getAdjacentIndices(index / 6, index % 6)) {
+                field.openCell(opened / 6, opened % 6);
+            }
+        }
+
+        assertTrue(field.isOpen(2, 3));
+        assertFalse(field.isFlagged(2, 3));
+        assertEquals(field.getPooCount(), 1);
+    }
+
+    @Test
+    public void pooAndFlagIndices() throws Exception {
+        for (int pooCount : new int[]{0, 10, 400, 499}) {
+            Field field = new Field(ROWS, COLUMNS, pooCount, pooCount);
+            int[] pooIndices = field.getPooIndices();
+
+            assertEquals(pooIndices.length, pooCount);
+            for (int index : pooIndices) {
+                assertTrue(field.isPoo(index / COLUMNS, index % COLUMNS));
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            this.field.toggleFlag(0, i % 5);
+        }
+        this.field.toggleFlag(1, 0);
+        this.field.openCell(1, 0);
+
+        assertEquals(this.field.getFlagIndices().length, 0);
+
+        this.field.toggleFlag(2, 3);
+        this.field.toggleFlag(0, 1);
+
+        int[] flagIndices = this.field.getFlagIndices();
+        Arrays.sort(flagIndices);
+        assertArrayEquals(flagIndices, new int[]{1, 2 * COLUMNS + 3});
+    }
+
+    @Test
+    public void takeDirtyIndices() throws Exception {
+        this.field.openCell(0, 1);
+        assertEquals(this.field.takeDirtyIndices().length, 0);
+
+        this.field.enableDirtyTracking();
+        this.field.openCell(0, 2);
+        this.field.openCell(0, 2);
+        this.field.toggleFlag(1, 1);
+
+        assertArrayEquals(this.field.takeDirtyIndices(), new int[]{2, COLUMNS + 1});
+        assertEquals(this.field.takeDirtyIndices().length, 0);
+    }
+
+    private static void assertPooCount(Field field, int expected) {
+        int actual = 0;
+        for (int row = 0; row < field.getRows(); row++) {
+            for (int column = 0; column < field.getColumns(); column++) {
+                if (field.isPoo(row, column)) {
+                    actual++;
+                }
+            }
+        }
+
+        assertEquals(actual, expected);
+    }
+}
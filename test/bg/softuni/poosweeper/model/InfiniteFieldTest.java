@@ -0,0 +1,94 @@
+package bg.softuni.poosweeper.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InfiniteFieldTest {
+
+    @Test
+    public void isPooWithSeed() throws Exception {
+        InfiniteField first = new InfiniteField(0.2, 5L, 4, 16);
+        InfiniteField second = new InfiniteField(0.2, 5L, 64, 16);
+
+        for (int row = -100; row < 100; row += 3) {
+            for (int column = -100; column < 100; column += 7) {
+                assertEquals(first.isPoo(row, column), second.isPoo(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void getCellValue() throws Exception {
+        InfiniteField field = new InfiniteField(0.3, 11L, 2, 16);
+
+        for (int row = -40; row < 40; row++) {
+            for (int column = -40; column < 40; column++) {
+                if (field.isPoo(row, column)) {
+                    continue;
+                }
+
+                int poos = 0;
+                for (int nearRow = row - 1; nearRow <= row + 1; nearRow++) {
+                    for (int nearColumn = column - 1; nearColumn <= column + 1; nearColumn++) {
+                        poos += field.isPoo(nearRow, nearColumn) ? 1 : 0;
+                    }
+                }
+
+                assertEquals(field.getCellValue(row, column).ordinal(), poos);
+            }
+        }
+    }
+
+    @Test
+    public void open() throws Exception {
+        InfiniteField field = new InfiniteField(0.15, 3L, 4, 16);
+
+        int row = 0;
+        while (field.isPoo(row, 0)) {
+            row++;
+        }
+
+        long[] region = field.open(row, 0);
+
+        assertEquals(InfiniteField.rowOf(region[0]), row);
+        assertEquals(InfiniteField.columnOf(region[0]), 0);
+        for (long cell : region) {
+            assertTrue(field.isOpen(InfiniteField.rowOf(cell), InfiniteField.columnOf(cell)));
+            assertFalse(field.isPoo(InfiniteField.rowOf(cell), InfiniteField.columnOf(cell)));
+        }
+        assertEquals(field.open(row, 0).length, 0);
+    }
+
+    @Test
+    public void evict() throws Exception {
+        InfiniteField field = new InfiniteField(0.2, 9L, 4, 16);
+
+        boolean flagged = field.toggleFlag(-1, -1);
+
+        for (int chunk = 0; chunk < 100; chunk++) {
+            field.isPoo(chunk * InfiniteField.CHUNK_SIZE, 0);
+            assertTrue(field.getLoadedChunkCount() <= 4);
+        }
+
+        assertEquals(field.getPackedChunkCount(), 1);
+        assertEquals(field.isFlagged(-1, -1), flagged);
+        assertEquals(field.getPackedChunkCount(), 0);
+    }
+
+    @Test
+    public void evictPacked() throws Exception {
+        InfiniteField field = new InfiniteField(0.2, 9L, 1, 2);
+
+        for (int chunk = 0; chunk < 5; chunk++) {
+            field.toggleFlag(chunk * InfiniteField.CHUNK_SIZE, 0);
+        }
+        field.isPoo(-InfiniteField.CHUNK_SIZE, 0);
+
+        assertEquals(field.getPackedChunkCount(), 2);
+        assertFalse(field.isFlagged(0, 0));
+        assertTrue(field.isFlagged(4 * InfiniteField.CHUNK_SIZE, 0));
+    }
+}
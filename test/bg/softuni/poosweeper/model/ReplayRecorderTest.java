@@ -0,0 +1,77 @@
+package bg.softuni.poosweeper.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayRecorderTest {
+
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        this.path = Files.createTempFile("poosweeper", ".replay");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    public void record() throws Exception {
+        Field field = new Field(30, 70, 400, 3L);
+        ReplayRecorder recorder = new ReplayRecorder(this.path, field);
+
+        for (int i = 0; i < 1000; i++) {
+            recorder.record(i % 3 == 0 ? ReplayAction.Flag : ReplayAction.Open, (i * 7) % 30, (i * 13) % 70);
+        }
+        recorder.close().get();
+
+        try (ReplayReader reader = new ReplayReader(this.path)) {
+            Field replayed = reader.getField();
+            for (int row = 0; row < 30; row++) {
+                for (int column = 0; column < 70; column++) {
+                    assertEquals(replayed.isPoo(row, column), field.isPoo(row, column));
+                    assertEquals(replayed.getCellValue(row, column), field.getCellValue(row, column));
+                }
+            }
+
+            long time = 0;
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(reader.next());
+                assertEquals(reader.getAction(), i % 3 == 0 ? ReplayAction.Flag : ReplayAction.Open);
+                assertEquals(reader.getRow(), (i * 7) % 30);
+                assertEquals(reader.getColumn(), (i * 13) % 70);
+                assertTrue(reader.getTimeNanos() >= time);
+                time = reader.getTimeNanos();
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void readTruncated() throws Exception {
+        ReplayRecorder recorder = new ReplayRecorder(this.path, new Field(8, 8, 10, 1L));
+        recorder.record(ReplayAction.Open, 3, 4);
+        recorder.record(ReplayAction.Flag, 7, 7);
+        recorder.close().get();
+
+        byte[] bytes = Files.readAllBytes(this.path);
+        Files.write(this.path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        try (ReplayReader reader = new ReplayReader(this.path)) {
+            assertTrue(reader.next());
+            assertEquals(reader.getRow(), 3);
+            assertFalse(reader.next());
+        }
+    }
+}
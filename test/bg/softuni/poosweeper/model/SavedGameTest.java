@@ -0,0 +1,86 @@
+package bg.softuni.poosweeper.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class SavedGameTest {
+
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        this.path = Files.createTempFile("poosweeper", ".save");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        Field field = new Field(37, 53, 300, 5L);
+        field.toggleFlag(1, 1);
+        field.toggleFlag(36, 52);
+        for (int row = 0; row < field.getRows(); row += 4) {
+            for (int column = 0; column < field.getColumns(); column += 3) {
+                if (!field.isPoo(row, column) && !field.isFlagged(row, column)) {
+                    field.openCell(row, column);
+                }
+            }
+        }
+
+        new SavedGame(field, 123_456_789L).save(this.path);
+        SavedGame loaded = SavedGame.load(this.path);
+        Field restored = loaded.getField();
+
+        assertEquals(loaded.getElapsedNanos(), 123_456_789L);
+        assertEquals(restored.getRows(), 37);
+        assertEquals(restored.getColumns(), 53);
+        assertEquals(restored.getPooCount(), field.getPooCount());
+        assertEquals(restored.isSolved(), field.isSolved());
+        for (int row = 0; row < field.getRows(); row++) {
+            for (int column = 0; column < field.getColumns(); column++) {
+                assertEquals(restored.isPoo(row, column), field.isPoo(row, column));
+                assertEquals(restored.isOpen(row, column), field.isOpen(row, column));
+                assertEquals(restored.isFlagged(row, column), field.isFlagged(row, column));
+                assertEquals(restored.getCellValue(row, column), field.getCellValue(row, column));
+            }
+        }
+        assertFalse(Files.exists(this.path.resolveSibling(this.path.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void failedSaveRemovesTemporaryFile() throws Exception {
+        Path directory = Files.createTempDirectory("poosweeper");
+        Path target = directory.resolve("save");
+        Path child = Files.createDirectories(target).resolve("child");
+        Files.createFile(child);
+
+        try {
+            new SavedGame(new Field(8, 8, 10), 0).save(target);
+            fail();
+        } catch (IOException e) {
+            assertFalse(Files.exists(directory.resolve("save.tmp")));
+        } finally {
+            Files.delete(child);
+            Files.delete(target);
+            Files.delete(directory);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void loadInvalidFile() throws Exception {
+        Files.write(this.path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        SavedGame.load(this.path);
+    }
+}
@@ -0,0 +1,39 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NoGuessGeneratorTest {
+
+    @Test
+    public void generate() throws Exception {
+        NoGuessGenerator generator = new NoGuessGenerator(2, 10_000);
+
+        for (int i = 0; i < 10; i++) {
+            Field field = generator.generate(Difficulty.Hard);
+            int startRow = NoGuessGenerator.getStartRow(field);
+            int startColumn = NoGuessGenerator.getStartColumn(field);
+
+            assertEquals(field.getPooCount(), 99);
+            assertTrue(new Solver(field, new SplittableRandom(i)).solveWithoutGuessing(startRow, startColumn));
+        }
+
+        generator.shutdown();
+    }
+
+    @Test
+    public void generateWithoutTime() throws Exception {
+        NoGuessGenerator generator = new NoGuessGenerator(1, 0);
+
+        assertNull(generator.generate(Difficulty.Insane));
+
+        generator.shutdown();
+    }
+}
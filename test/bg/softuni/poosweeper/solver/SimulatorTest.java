@@ -0,0 +1,34 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatorTest {
+
+    @Test
+    public void simulate() throws Exception {
+        Simulator simulator = new Simulator(2, Policy.Deduction, 7L);
+        SimulationResult first = simulator.simulate(Difficulty.Easy, 1000);
+        SimulationResult second = simulator.simulate(Difficulty.Easy, 1000);
+        simulator.shutdown();
+
+        assertEquals(first.getGames(), 1000);
+        assertTrue(first.getWon() > 0 && first.getWon() <= 1000);
+        assertEquals(first.getWon(), second.getWon());
+        assertArrayEquals(first.getRegionHistogram(), second.getRegionHistogram());
+    }
+
+    @Test
+    public void simulateRandomClicks() throws Exception {
+        Simulator simulator = new Simulator(1, Policy.RandomClicks, 7L);
+        SimulationResult result = simulator.simulate(Difficulty.Hard, 500);
+        simulator.shutdown();
+
+        assertEquals(result.getGames(), 500);
+        assertTrue(result.getAverageOpenedCells() > 0);
+    }
+}
@@ -0,0 +1,64 @@
+package bg.softuni.poosweeper.solver;
+
+import bg.softuni.poosweeper.model.Difficulty;
+import bg.softuni.poosweeper.model.Field;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolverTest {
+
+    @Test
+    public void solveEmptyField() throws Exception {
+        Field field = new Field(10, 20, 0, 1L);
+        Solver solver = new Solver(field, new SplittableRandom(1L));
+
+        assertTrue(solver.solve(5, 5));
+        assertTrue(field.isSolved());
+        assertEquals(solver.getOpenedCount(), 200);
+        assertEquals(solver.getGuesses(), 0);
+    }
+
+    @Test
+    public void solveFlagsOnlyPoos() throws Exception {
+        int won = 0;
+
+        for (long seed = 0; seed < 200; seed++) {
+            Field field = new Field(Difficulty.Medium.getRows(), Difficulty.Medium.getColumns(),
+                    Difficulty.Medium.getPooCount(), seed);
+            Solver solver = new Solver(field, new SplittableRandom(seed));
+
+            boolean solved = solver.solve();
+            assertEquals(solved, field.isSolved());
+            won += solved ? 1 : 0;
+
+            for (int row = 0; row < field.getRows(); row++) {
+                for (int column = 0; column < field.getColumns(); column++) {
+                    if (field.isFlagged(row, column)) {
+                        assertTrue(field.isPoo(row, column));
+                    }
+                }
+            }
+        }
+
+        assertTrue(won > 100);
+    }
+
+    @Test
+    public void solveWinsHardGames() throws Exception {
+        int won = 0;
+
+        for (long seed = 0; seed < 500; seed++) {
+            Field field = new Field(Difficulty.Hard.getRows(), Difficulty.Hard.getColumns(),
+                    Difficulty.Hard.getPooCount(), seed);
+            Solver solver = new Solver(field, new SplittableRandom(seed));
+
+            won += solver.solve() ? 1 : 0;
+        }
+
+        assertTrue(won >= 125);
+    }
+}